@@ -0,0 +1,290 @@
+package com.fitness.add_meal_service.catalog;
+
+import com.fitness.add_meal_service.dto.ManualMealResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * KD-tree over each meal's macro profile, for "what is closest to this food" lookups.
+ *
+ * A meal's point is (protein, carbs, fats, fiber) in grams per 100 kcal, so foods compare by
+ * composition rather than portion size; meals without positive calories are left out and missing
+ * macros count as zero. New meals are inserted as leaves, and the tree is rebuilt balanced
+ * (median splits) whenever it has grown by half since the last build, which keeps inserts cheap
+ * on average and lookups logarithmic.
+ */
+@Component
+public class MealMacroTree {
+
+    private static final int DIMENSIONS = 4;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private ManualMealResponse[] meals = new ManualMealResponse[INITIAL_CAPACITY];
+    private final double[][] coords = new double[DIMENSIONS][INITIAL_CAPACITY];
+    private int[] left = new int[INITIAL_CAPACITY];
+    private int[] right = new int[INITIAL_CAPACITY];
+    private int size;
+    private int root = -1;
+    private int builtSize;
+
+    private volatile boolean ready;
+
+    public void add(ManualMealResponse meal) {
+        if (profile(meal) == null) return;
+
+        lock.writeLock().lock();
+        try {
+            int node = size;
+            ensureCapacity(node + 1);
+            meals[node] = meal;
+            double[] point = profile(meal);
+            for (int d = 0; d < DIMENSIONS; d++) coords[d][node] = point[d];
+            left[node] = -1;
+            right[node] = -1;
+            size++;
+
+            if (!ready) return;
+            if (size > builtSize + builtSize / 2) {
+                rebuild();
+            } else {
+                insert(node);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void markReady() {
+        lock.writeLock().lock();
+        try {
+            if (ready) return;
+            rebuild();
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * The {@code k} meals whose macro profile is closest (Euclidean) to the given meal's, nearest
+     * first, not including the meal itself. Empty if the meal has no usable profile.
+     */
+    public List<ManualMealResponse> nearest(ManualMealResponse meal, int k) {
+        double[] target = profile(meal);
+        if (target == null || k <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            Neighbours neighbours = new Neighbours(k);
+            search(root, 0, target, meal.getId(), neighbours);
+            return neighbours.drainNearestFirst();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Grams of protein, carbs, fats and fiber per 100 kcal, or null without positive calories. */
+    static double[] profile(ManualMealResponse meal) {
+        if (meal == null || meal.getCalories() == null || meal.getCalories() <= 0) return null;
+        double scale = 100d / meal.getCalories();
+        return new double[]{
+                grams(meal.getProtein()) * scale,
+                grams(meal.getCarbs()) * scale,
+                grams(meal.getFats()) * scale,
+                grams(meal.getFiber()) * scale
+        };
+    }
+
+    private static double grams(Double value) {
+        return value == null ? 0d : value;
+    }
+
+    private void search(int node, int depth, double[] target, Long excludeId, Neighbours neighbours) {
+        if (node < 0) return;
+
+        double dist = 0;
+        for (int d = 0; d < DIMENSIONS; d++) {
+            double diff = coords[d][node] - target[d];
+            dist += diff * diff;
+        }
+        if (!meals[node].getId().equals(excludeId)) {
+            neighbours.offer(node, dist);
+        }
+
+        int dim = depth % DIMENSIONS;
+        double diff = target[dim] - coords[dim][node];
+        int near = diff < 0 ? left[node] : right[node];
+        int far = diff < 0 ? right[node] : left[node];
+        search(near, depth + 1, target, excludeId, neighbours);
+        if (!neighbours.isFull() || diff * diff < neighbours.worstDistance()) {
+            search(far, depth + 1, target, excludeId, neighbours);
+        }
+    }
+
+    private void insert(int node) {
+        if (root < 0) {
+            root = node;
+            return;
+        }
+        int current = root;
+        int depth = 0;
+        while (true) {
+            int dim = depth % DIMENSIONS;
+            boolean goLeft = coords[dim][node] < coords[dim][current];
+            int next = goLeft ? left[current] : right[current];
+            if (next < 0) {
+                if (goLeft) left[current] = node;
+                else right[current] = node;
+                return;
+            }
+            current = next;
+            depth++;
+        }
+    }
+
+    private void rebuild() {
+        int[] nodes = new int[size];
+        for (int i = 0; i < size; i++) {
+            nodes[i] = i;
+            left[i] = -1;
+            right[i] = -1;
+        }
+        root = build(nodes, 0, size, 0);
+        builtSize = size;
+    }
+
+    private int build(int[] nodes, int from, int to, int depth) {
+        if (from >= to) return -1;
+        int dim = depth % DIMENSIONS;
+        int mid = (from + to) >>> 1;
+        select(nodes, from, to - 1, mid, coords[dim]);
+        // quickselect can leave values equal to the median anywhere left of it; move them next to
+        // it and split at the first, so everything equal to the split sits right of it, as insert() assumes
+        double median = coords[dim][nodes[mid]];
+        int less = from;
+        for (int i = from; i < mid; i++) {
+            if (coords[dim][nodes[i]] < median) {
+                int t = nodes[i];
+                nodes[i] = nodes[less];
+                nodes[less++] = t;
+            }
+        }
+        mid = less;
+        int pivot = nodes[mid];
+        left[pivot] = build(nodes, from, mid, depth + 1);
+        right[pivot] = build(nodes, mid + 1, to, depth + 1);
+        return pivot;
+    }
+
+    /** Quickselect: afterwards nodes[k] holds the k-th smallest by {@code key}, none larger before it and none smaller after. */
+    private static void select(int[] nodes, int lo, int hi, int k, double[] key) {
+        while (lo < hi) {
+            double pivot = key[nodes[(lo + hi) >>> 1]];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (key[nodes[i]] < pivot) i++;
+                while (key[nodes[j]] > pivot) j--;
+                if (i <= j) {
+                    int t = nodes[i];
+                    nodes[i] = nodes[j];
+                    nodes[j] = t;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) hi = j;
+            else if (k >= i) lo = i;
+            else return;
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= meals.length) return;
+        int newCapacity = Math.max(capacity, meals.length * 2);
+        meals = Arrays.copyOf(meals, newCapacity);
+        for (int d = 0; d < DIMENSIONS; d++) coords[d] = Arrays.copyOf(coords[d], newCapacity);
+        left = Arrays.copyOf(left, newCapacity);
+        right = Arrays.copyOf(right, newCapacity);
+    }
+
+    /** Bounded max-heap on squared distance; the root is the farthest neighbour kept. */
+    private final class Neighbours {
+        private final int[] nodes;
+        private final double[] distances;
+        private int size;
+
+        Neighbours(int k) {
+            nodes = new int[k];
+            distances = new double[k];
+        }
+
+        boolean isFull() {
+            return size == nodes.length;
+        }
+
+        double worstDistance() {
+            return distances[0];
+        }
+
+        void offer(int node, double distance) {
+            if (size < nodes.length) {
+                nodes[size] = node;
+                distances[size] = distance;
+                int i = size++;
+                while (i > 0) {
+                    int parent = (i - 1) >>> 1;
+                    if (distances[parent] >= distances[i]) break;
+                    swap(i, parent);
+                    i = parent;
+                }
+            } else if (distance < distances[0]) {
+                nodes[0] = node;
+                distances[0] = distance;
+                siftDown();
+            }
+        }
+
+        List<ManualMealResponse> drainNearestFirst() {
+            ManualMealResponse[] result = new ManualMealResponse[size];
+            for (int i = result.length - 1; i >= 0; i--) {
+                result[i] = meals[nodes[0]];
+                size--;
+                nodes[0] = nodes[size];
+                distances[0] = distances[size];
+                siftDown();
+            }
+            return List.of(result);
+        }
+
+        private void siftDown() {
+            int i = 0;
+            while (true) {
+                int l = 2 * i + 1, r = l + 1, largest = i;
+                if (l < size && distances[l] > distances[largest]) largest = l;
+                if (r < size && distances[r] > distances[largest]) largest = r;
+                if (largest == i) return;
+                swap(i, largest);
+                i = largest;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int n = nodes[a];
+            nodes[a] = nodes[b];
+            nodes[b] = n;
+            double d = distances[a];
+            distances[a] = distances[b];
+            distances[b] = d;
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package com.fitness.add_meal_service.catalog;
+
+import com.fitness.add_meal_service.dto.ManualMealResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Columnar in-memory copy of the catalog's nutrition values for range queries.
+ *
+ * Each nutrient is a {@code double[]} indexed by ordinal (missing values are NaN and never match
+ * a predicate), plus an array of ordinals sorted by that nutrient. A query finds each bounded
+ * nutrient's range by binary search, drives the scan from the narrowest one and checks the other
+ * predicates against the primitive columns, keeping the best {@code limit} in a primitive heap.
+ * When the result is ordered by a plain nutrient and that range is not much wider than the
+ * narrowest one, the scan walks that nutrient's sorted order instead and stops at {@code limit}.
+ */
+@Component
+public class MealNutrientIndex {
+
+    public enum Nutrient {
+        CALORIES(ManualMealResponse::getCalories),
+        CARBS(ManualMealResponse::getCarbs),
+        PROTEIN(ManualMealResponse::getProtein),
+        FATS(ManualMealResponse::getFats),
+        FIBER(ManualMealResponse::getFiber);
+
+        private final Function<ManualMealResponse, Double> getter;
+
+        Nutrient(Function<ManualMealResponse, Double> getter) {
+            this.getter = getter;
+        }
+    }
+
+    public enum SortKey {
+        CALORIES(Nutrient.CALORIES, null),
+        CARBS(Nutrient.CARBS, null),
+        PROTEIN(Nutrient.PROTEIN, null),
+        FATS(Nutrient.FATS, null),
+        FIBER(Nutrient.FIBER, null),
+        PROTEIN_PER_CALORIE(Nutrient.PROTEIN, Nutrient.CALORIES),
+        FIBER_PER_CALORIE(Nutrient.FIBER, Nutrient.CALORIES);
+
+        private final Nutrient numerator;
+        private final Nutrient denominator;
+
+        SortKey(Nutrient numerator, Nutrient denominator) {
+            this.numerator = numerator;
+            this.denominator = denominator;
+        }
+
+        /** Accepts "proteinPerCalorie", "protein_per_calorie", "PROTEIN" ... */
+        public static SortKey parse(String raw) {
+            if (raw == null || raw.isBlank()) return null;
+            String key = raw.trim().replaceAll("([a-z])([A-Z])", "$1_$2").toUpperCase(Locale.ROOT);
+            for (SortKey k : values()) {
+                if (k.name().equals(key)) return k;
+            }
+            return null;
+        }
+    }
+
+    /** Inclusive bounds per nutrient (infinite when unset), ordering and size of the result. */
+    public static final class Query {
+        private final double[] min = new double[NUTRIENTS];
+        private final double[] max = new double[NUTRIENTS];
+        private SortKey sort = SortKey.CALORIES;
+        private boolean descending;
+        private int limit = 20;
+
+        public Query() {
+            Arrays.fill(min, Double.NEGATIVE_INFINITY);
+            Arrays.fill(max, Double.POSITIVE_INFINITY);
+        }
+
+        public Query range(Nutrient nutrient, Double from, Double to) {
+            if (from != null) min[nutrient.ordinal()] = from;
+            if (to != null) max[nutrient.ordinal()] = to;
+            return this;
+        }
+
+        public Query orderBy(SortKey sort, boolean descending) {
+            this.sort = sort;
+            this.descending = descending;
+            return this;
+        }
+
+        public Query limit(int limit) {
+            this.limit = limit;
+            return this;
+        }
+
+        private boolean isBounded(int column) {
+            return min[column] != Double.NEGATIVE_INFINITY || max[column] != Double.POSITIVE_INFINITY;
+        }
+    }
+
+    private static final int NUTRIENTS = Nutrient.values().length;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private ManualMealResponse[] meals = new ManualMealResponse[INITIAL_CAPACITY];
+    private final double[][] values = new double[NUTRIENTS][INITIAL_CAPACITY];
+    private int size;
+
+    // per nutrient: ordinals with a value, ascending by (value, ordinal); NaNs are left out
+    private final int[][] sorted = new int[NUTRIENTS][INITIAL_CAPACITY];
+    private final int[] sortedSize = new int[NUTRIENTS];
+
+    private volatile boolean ready;
+
+    /** Adds a meal; {@code ManualMealService} only calls this for meals new to {@link MealSearchIndex}. */
+    public void add(ManualMealResponse meal) {
+        lock.writeLock().lock();
+        try {
+            int ordinal = size;
+            ensureCapacity(ordinal + 1);
+            meals[ordinal] = meal;
+            for (Nutrient n : Nutrient.values()) {
+                Double v = n.getter.apply(meal);
+                values[n.ordinal()][ordinal] = v == null ? Double.NaN : v;
+            }
+            size++;
+
+            if (ready) {
+                for (int c = 0; c < NUTRIENTS; c++) {
+                    double v = values[c][ordinal];
+                    if (Double.isNaN(v)) continue;
+                    int at = lowerBound(c, v, 0, sortedSize[c]);
+                    // equal values stay in ordinal order; this ordinal is the largest so far
+                    while (at < sortedSize[c] && values[c][sorted[c][at]] == v) at++;
+                    System.arraycopy(sorted[c], at, sorted[c], at + 1, sortedSize[c] - at);
+                    sorted[c][at] = ordinal;
+                    sortedSize[c]++;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void markReady() {
+        lock.writeLock().lock();
+        try {
+            if (ready) return;
+            for (int c = 0; c < NUTRIENTS; c++) {
+                double[] column = values[c];
+                Integer[] order = new Integer[size];
+                int n = 0;
+                for (int i = 0; i < size; i++) {
+                    if (!Double.isNaN(column[i])) order[n++] = i;
+                }
+                Arrays.sort(order, 0, n, (a, b) -> {
+                    int cmp = Double.compare(column[a], column[b]);
+                    return cmp != 0 ? cmp : Integer.compare(a, b);
+                });
+                for (int i = 0; i < n; i++) sorted[c][i] = order[i];
+                sortedSize[c] = n;
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<ManualMealResponse> query(Query query) {
+        if (query.limit <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            // narrowest bounded range drives the scan
+            int driver = -1, driverFrom = 0, driverTo = size;
+            int sortColumn = query.sort.denominator == null ? query.sort.numerator.ordinal() : -1;
+            int sortFrom = 0, sortTo = sortColumn >= 0 ? sortedSize[sortColumn] : 0;
+            for (int c = 0; c < NUTRIENTS; c++) {
+                if (!query.isBounded(c)) continue;
+                int from = lowerBound(c, query.min[c], 0, sortedSize[c]);
+                int to = upperBound(c, query.max[c], from, sortedSize[c]);
+                if (c == sortColumn) {
+                    sortFrom = from;
+                    sortTo = to;
+                }
+                if (driver < 0 || to - from < driverTo - driverFrom) {
+                    driver = c;
+                    driverFrom = from;
+                    driverTo = to;
+                }
+            }
+
+            if (sortColumn >= 0 && (sortTo - sortFrom) <= 8L * (driverTo - driverFrom)) {
+                return scanInSortOrder(query, sortColumn, sortFrom, sortTo);
+            }
+
+            TopK top = new TopK(query.limit, query.descending);
+            for (int i = driverFrom; i < driverTo; i++) {
+                int ordinal = driver < 0 ? i : sorted[driver][i];
+                if (!matches(query, ordinal)) continue;
+                double score = score(query.sort, ordinal);
+                if (!Double.isNaN(score)) top.offer(ordinal, score);
+            }
+            return top.drainBestFirst();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<ManualMealResponse> scanInSortOrder(Query query, int column, int from, int to) {
+        ManualMealResponse[] result = new ManualMealResponse[query.limit];
+        int n = 0;
+        if (!query.descending) {
+            for (int i = from; i < to && n < result.length; i++) {
+                int ordinal = sorted[column][i];
+                if (matches(query, ordinal)) result[n++] = meals[ordinal];
+            }
+        } else {
+            // walk runs of equal values from the top, each in ordinal order like the heap's ties
+            for (int end = to; end > from && n < result.length; ) {
+                int start = lowerBound(column, values[column][sorted[column][end - 1]], from, end);
+                for (int i = start; i < end && n < result.length; i++) {
+                    int ordinal = sorted[column][i];
+                    if (matches(query, ordinal)) result[n++] = meals[ordinal];
+                }
+                end = start;
+            }
+        }
+        return List.of(Arrays.copyOf(result, n));
+    }
+
+    private boolean matches(Query query, int ordinal) {
+        for (int c = 0; c < NUTRIENTS; c++) {
+            if (!query.isBounded(c)) continue;
+            double v = values[c][ordinal];
+            if (!(v >= query.min[c] && v <= query.max[c])) return false; // NaN fails both
+        }
+        return true;
+    }
+
+    private double score(SortKey sort, int ordinal) {
+        double v = values[sort.numerator.ordinal()][ordinal];
+        if (sort.denominator == null) return v;
+        double d = values[sort.denominator.ordinal()][ordinal];
+        return d > 0 ? v / d : Double.NaN;
+    }
+
+    /** First position in {@code sorted[column]} whose value is >= {@code value}. */
+    private int lowerBound(int column, double value, int lo, int hi) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[column][sorted[column][mid]] < value) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /** First position in {@code sorted[column]} whose value is > {@code value}. */
+    private int upperBound(int column, double value, int lo, int hi) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (values[column][sorted[column][mid]] <= value) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= meals.length) return;
+        int newCapacity = Math.max(capacity, meals.length * 2);
+        meals = Arrays.copyOf(meals, newCapacity);
+        for (int c = 0; c < NUTRIENTS; c++) {
+            values[c] = Arrays.copyOf(values[c], newCapacity);
+            sorted[c] = Arrays.copyOf(sorted[c], newCapacity);
+        }
+    }
+
+    /** Fixed-size heap of the best {@code k} (ordinal, score) pairs; the root is the worst kept. */
+    private final class TopK {
+        private final int[] ordinals;
+        private final double[] scores;
+        private final boolean descending;
+        private int size;
+
+        TopK(int k, boolean descending) {
+            this.ordinals = new int[k];
+            this.scores = new double[k];
+            this.descending = descending;
+        }
+
+        void offer(int ordinal, double score) {
+            if (size < ordinals.length) {
+                ordinals[size] = ordinal;
+                scores[size] = score;
+                siftUp(size++);
+            } else if (better(score, ordinal, scores[0], ordinals[0])) {
+                ordinals[0] = ordinal;
+                scores[0] = score;
+                siftDown(0);
+            }
+        }
+
+        List<ManualMealResponse> drainBestFirst() {
+            ManualMealResponse[] result = new ManualMealResponse[size];
+            for (int i = result.length - 1; i >= 0; i--) {
+                result[i] = meals[ordinals[0]];
+                size--;
+                ordinals[0] = ordinals[size];
+                scores[0] = scores[size];
+                siftDown(0);
+            }
+            return List.of(result);
+        }
+
+        private boolean better(double scoreA, int ordinalA, double scoreB, int ordinalB) {
+            int cmp = Double.compare(scoreA, scoreB);
+            if (cmp == 0) return ordinalA < ordinalB;
+            return descending ? cmp > 0 : cmp < 0;
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (!better(scores[parent], ordinals[parent], scores[i], ordinals[i])) return;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1, right = left + 1, worst = i;
+                if (left < size && better(scores[worst], ordinals[worst], scores[left], ordinals[left])) worst = left;
+                if (right < size && better(scores[worst], ordinals[worst], scores[right], ordinals[right])) worst = right;
+                if (worst == i) return;
+                swap(i, worst);
+                i = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int o = ordinals[a];
+            ordinals[a] = ordinals[b];
+            ordinals[b] = o;
+            double s = scores[a];
+            scores[a] = scores[b];
+            scores[b] = s;
+        }
+    }
+}
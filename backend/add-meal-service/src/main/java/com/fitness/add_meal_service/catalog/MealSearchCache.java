@@ -0,0 +1,56 @@
+package com.fitness.add_meal_service.catalog;
+
+import com.fitness.add_meal_service.dto.ManualMealResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Bounded cache of search results keyed by the normalized keyword.
+ *
+ * Entries expire after a fixed TTL and are dropped early when a newly added meal would show up
+ * in their results. Hit/miss/eviction counters are published as {@code cache.*} meters with
+ * {@code cache=meal-search}.
+ */
+@Component
+public class MealSearchCache {
+
+    private final Cache<String, List<ManualMealResponse>> cache;
+
+    public MealSearchCache(
+            MeterRegistry meterRegistry,
+            @Value("${meals.search.cache.max-size:10000}") long maxSize,
+            @Value("${meals.search.cache.ttl:10m}") Duration ttl
+    ) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "meal-search");
+    }
+
+    public List<ManualMealResponse> get(String normalizedKeyword, Function<String, List<ManualMealResponse>> loader) {
+        return cache.get(normalizedKeyword, loader);
+    }
+
+    /**
+     * Drops every cached keyword the new meal name could match. A search that was already running
+     * when the meal was added may still cache its older result; that entry lives at most one TTL.
+     */
+    public void invalidateMatching(String mealName) {
+        String name = MealSearchIndex.normalize(mealName);
+        cache.asMap().keySet().removeIf(keyword -> MealSearchIndex.matches(name, keyword));
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+}
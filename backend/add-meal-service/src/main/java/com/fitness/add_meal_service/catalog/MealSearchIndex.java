@@ -0,0 +1,632 @@
+package com.fitness.add_meal_service.catalog;
+
+import com.fitness.add_meal_service.dto.ManualMealResponse;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory ranked search over manual meal names.
+ *
+ * Every meal gets a dense ordinal. Names are normalized (lower-case, punctuation collapsed to
+ * single spaces) and indexed three ways: trigram posting lists for substring lookups, a word
+ * vocabulary (sorted, plus a BK-tree for edit-distance lookups) and an array of ordinals sorted
+ * by name for prefix ranges.
+ *
+ * Results are ranked exact match, then name prefix, then word prefix, then substring, then
+ * typo matches; within a tier shorter names win, then alphabetical order. Each query evaluates at
+ * most {@link #MAX_SCANNED} candidates and only keeps the best {@code limit} of them, so the cost
+ * and allocation of a query do not grow with the catalog.
+ *
+ * Stored {@link ManualMealResponse} instances are shared between callers and must not be mutated.
+ */
+@Component
+public class MealSearchIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final int MAX_SCANNED = 5_000;
+    private static final int MAX_FUZZY_WORDS = 64;
+
+    private static final int EXACT = 0;
+    private static final int PREFIX = 1;
+    private static final int WORD_PREFIX = 2;
+    private static final int SUBSTRING = 3;
+    private static final int FUZZY = 4;
+    private static final int NO_MATCH = 5;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private ManualMealResponse[] meals = new ManualMealResponse[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY]; // normalized meal name by ordinal
+    private int size;
+
+    // ordinals ordered by (name, id); only maintained incrementally once the index is ready
+    private int[] byName = new int[INITIAL_CAPACITY];
+
+    private final Map<Long, IntList> trigrams = new HashMap<>();
+    private final NavigableMap<String, IntList> words = new TreeMap<>();
+    private final BkTree vocabulary = new BkTree();
+    private final Map<Long, Integer> ordinalById = new HashMap<>();
+    private int longestWord;
+
+    private volatile boolean ready;
+
+    /**
+     * Indexes a meal. Calling this again for an id that is already indexed is a no-op, so the
+     * startup load and live inserts can overlap safely.
+     *
+     * @return false if the meal was already indexed (or has no id/name)
+     */
+    public boolean add(ManualMealResponse meal) {
+        if (meal == null || meal.getId() == null || meal.getMealName() == null) return false;
+
+        lock.writeLock().lock();
+        try {
+            if (ordinalById.containsKey(meal.getId())) return false;
+
+            int ordinal = size;
+            ensureCapacity(ordinal + 1);
+            meals[ordinal] = meal;
+            names[ordinal] = normalize(meal.getMealName());
+            ordinalById.put(meal.getId(), ordinal);
+            size++;
+
+            String name = names[ordinal];
+            for (int i = 0; i + 3 <= name.length(); i++) {
+                trigrams.computeIfAbsent(trigramKey(name, i), k -> new IntList()).addIfAbsent(ordinal);
+            }
+            for (String word : tokens(name)) {
+                IntList postings = words.get(word);
+                if (postings == null) {
+                    postings = new IntList();
+                    words.put(word, postings);
+                    longestWord = Math.max(longestWord, word.length());
+                    if (isAlphabetic(word)) {
+                        // quantities and codes ("500", "b12") are never typo targets
+                        vocabulary.add(word, new int[longestWord + 1], new int[longestWord + 1]);
+                    }
+                }
+                postings.addIfAbsent(ordinal);
+            }
+
+            if (ready) {
+                int insertAt = insertionPoint(ordinal, ordinal);
+                System.arraycopy(byName, insertAt, byName, insertAt + 1, ordinal - insertAt);
+                byName[insertAt] = ordinal;
+            }
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Called once the startup load has gone through the whole table. Until then {@link #search}
+     * must not be used and callers fall back to the database.
+     */
+    public void markReady() {
+        lock.writeLock().lock();
+        try {
+            if (ready) return;
+            Integer[] sorted = new Integer[size];
+            for (int i = 0; i < size; i++) sorted[i] = i;
+            Arrays.sort(sorted, this::compareByName);
+            for (int i = 0; i < size; i++) byName[i] = sorted[i];
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** The indexed meal with this id, or null. */
+    public ManualMealResponse findById(Long id) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinalById.get(id);
+            return ordinal == null ? null : meals[ordinal];
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the best {@code limit} meals for the keyword, best first.
+     */
+    public List<ManualMealResponse> search(String keyword, int limit) {
+        String q = normalize(keyword);
+        if (q.isEmpty() || limit <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            Query query = new Query(q, limit);
+
+            collectPrefixRange(query);
+            if (q.length() >= 3) {
+                collectTrigramMatches(query);
+            } else {
+                collectWordPrefixMatches(query);
+                collectShortSubstringMatches(query);
+            }
+            if (!query.top.isFull()) {
+                collectFuzzyMatches(query);
+            }
+
+            return query.top.drainBestFirst();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * One page of every meal whose name contains the keyword, in (name, id) order, starting after
+     * the given name/id ({@code afterName} null for the first page). Unlike {@link #search} this is
+     * unranked and has no typo matches, so pages stay stable as the client walks them. Keywords of
+     * three or more characters only look at the rarest trigram's postings and shorter ones scan
+     * forward from the cursor, so a page costs the same at any depth.
+     */
+    public List<ManualMealResponse> page(String keyword, String afterName, long afterId, int limit) {
+        String q = normalize(keyword);
+        if (q.isEmpty() || limit <= 0) return List.of();
+        String after = afterName == null ? null : normalize(afterName);
+
+        lock.readLock().lock();
+        try {
+            // equal ranks make TopK fall back to (name, id) order
+            TopK top = new TopK(limit);
+            if (q.length() >= 3) {
+                IntList candidates = null;
+                for (int i = 0; i + 3 <= q.length(); i++) {
+                    IntList postings = trigrams.get(trigramKey(q, i));
+                    if (postings == null) return List.of();
+                    if (candidates == null || postings.size < candidates.size) candidates = postings;
+                }
+                for (int i = 0; i < candidates.size; i++) {
+                    int ordinal = candidates.values[i];
+                    if (isAfter(ordinal, after, afterId) && names[ordinal].contains(q)) top.offer(ordinal, 0);
+                }
+            } else {
+                int lo = 0, hi = size;
+                while (after != null && lo < hi) {
+                    int mid = (lo + hi) >>> 1;
+                    if (isAfter(byName[mid], after, afterId)) hi = mid;
+                    else lo = mid + 1;
+                }
+                for (int i = lo; i < size && !top.isFull(); i++) {
+                    if (names[byName[i]].contains(q)) top.offer(byName[i], 0);
+                }
+            }
+            return top.drainBestFirst();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Lower-cases the name and collapses every run of non letter/digit characters into a single
+     * space, so "Chicken-Curry (home)" and "chicken curry home" index the same way.
+     */
+    public static String normalize(String s) {
+        if (s == null) return "";
+        StringBuilder sb = new StringBuilder(s.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = Character.toLowerCase(s.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                if (pendingSpace && sb.length() > 0) sb.append(' ');
+                pendingSpace = false;
+                sb.append(c);
+            } else {
+                pendingSpace = true;
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Whether {@link #search} could return a meal with this name for this keyword, in any tier.
+     * Both arguments must already be normalized.
+     */
+    public static boolean matches(String name, String keyword) {
+        if (keyword.isEmpty()) return false;
+        if (tier(name, keyword, " " + keyword) != NO_MATCH) return true;
+        int[] prev = new int[Math.max(name.length(), keyword.length()) + 1];
+        return typos(name, tokens(keyword), prev, new int[prev.length]) >= 0;
+    }
+
+    // --- candidate stages, cheapest and most valuable first ---
+
+    private void collectPrefixRange(Query query) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (names[byName[mid]].compareTo(query.q) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        for (int i = lo; i < size && query.hasBudget(); i++) {
+            int ordinal = byName[i];
+            if (!names[ordinal].startsWith(query.q)) break;
+            query.offer(ordinal);
+        }
+    }
+
+    private void collectTrigramMatches(Query query) {
+        // verify candidates from the rarest trigram of the keyword
+        IntList candidates = null;
+        for (int i = 0; i + 3 <= query.q.length(); i++) {
+            IntList postings = trigrams.get(trigramKey(query.q, i));
+            if (postings == null) return;
+            if (candidates == null || postings.size < candidates.size) candidates = postings;
+        }
+        for (int i = 0; i < candidates.size && query.hasBudget(); i++) {
+            query.offer(candidates.values[i]);
+        }
+    }
+
+    private void collectWordPrefixMatches(Query query) {
+        for (IntList postings : words.subMap(query.q, true, query.q + Character.MAX_VALUE, false).values()) {
+            for (int i = 0; i < postings.size && query.hasBudget(); i++) {
+                query.offer(postings.values[i]);
+            }
+            if (!query.hasBudget()) return;
+        }
+    }
+
+    // keeps going once the result is full: a shorter substring hit later in name order still wins
+    private void collectShortSubstringMatches(Query query) {
+        for (int i = 0; i < size && query.hasBudget(); i++) {
+            query.offer(byName[i]);
+        }
+    }
+
+    /**
+     * Every keyword token has to match some word of the name, either as a prefix or within the
+     * edit-distance budget for its length. Candidates come from the token with the fewest postings.
+     */
+    private void collectFuzzyMatches(Query query) {
+        String[] tokens = tokens(query.q);
+        int[] prev = new int[Math.max(longestWord, query.q.length()) + 1];
+        int[] curr = new int[prev.length];
+
+        List<IntList> rarest = null;
+        int rarestCount = Integer.MAX_VALUE;
+        for (String token : tokens) {
+            List<IntList> matched = new ArrayList<>();
+            int count = 0;
+            for (String word : vocabulary.within(token, maxTypos(token), MAX_FUZZY_WORDS, prev, curr)) {
+                IntList postings = words.get(word);
+                matched.add(postings);
+                count += postings.size;
+            }
+            for (IntList postings : words.subMap(token, true, token + Character.MAX_VALUE, false).values()) {
+                if (matched.size() >= MAX_FUZZY_WORDS) break;
+                matched.add(postings);
+                count += postings.size;
+            }
+            if (matched.isEmpty()) return;
+            if (count < rarestCount) {
+                rarest = matched;
+                rarestCount = count;
+            }
+        }
+
+        for (IntList postings : rarest) {
+            for (int i = 0; i < postings.size && query.hasBudget(); i++) {
+                int ordinal = postings.values[i];
+                query.scanned++;
+                int typos = typos(names[ordinal], tokens, prev, curr);
+                if (typos >= 0) query.offerTypoMatch(ordinal, typos);
+            }
+        }
+    }
+
+    /** Sum of per-token distances to their closest name word, or -1 if some token has no match. */
+    private static int typos(String name, String[] tokens, int[] prev, int[] curr) {
+        int total = 0;
+        for (String token : tokens) {
+            int max = maxTypos(token);
+            int best = max + 1;
+            int start = 0;
+            while (start < name.length() && best > 0) {
+                int end = name.indexOf(' ', start);
+                if (end < 0) end = name.length();
+                if (end - start >= token.length() && name.startsWith(token, start)) {
+                    best = 0;
+                } else {
+                    best = Math.min(best, distance(token, name, start, end, max, prev, curr));
+                }
+                start = end + 1;
+            }
+            if (best > max) return -1;
+            total += best;
+        }
+        return total;
+    }
+
+    private static boolean isAlphabetic(String word) {
+        for (int i = 0; i < word.length(); i++) {
+            if (!Character.isLetter(word.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    private static int maxTypos(String token) {
+        if (token.length() < 3 || !isAlphabetic(token)) return 0;
+        return token.length() <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Levenshtein distance between {@code a} and {@code b[from, to)}, giving up with
+     * {@code max + 1} as soon as the distance is known to exceed {@code max}.
+     */
+    private static int distance(String a, String b, int from, int to, int max, int[] prev, int[] curr) {
+        int n = a.length(), m = to - from;
+        if (Math.abs(n - m) > max) return max + 1;
+        for (int j = 0; j <= m; j++) prev[j] = j;
+        for (int i = 1; i <= n; i++) {
+            curr[0] = i;
+            int rowMin = i;
+            char ca = a.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                int cost = ca == b.charAt(from + j - 1) ? 0 : 1;
+                curr[j] = Math.min(Math.min(prev[j] + 1, curr[j - 1] + 1), prev[j - 1] + cost);
+                rowMin = Math.min(rowMin, curr[j]);
+            }
+            if (rowMin > max) return max + 1;
+            int[] tmp = prev;
+            prev = curr;
+            curr = tmp;
+        }
+        return Math.min(prev[m], max + 1);
+    }
+
+    private static int tier(String name, String q, String wordPrefix) {
+        if (name.equals(q)) return EXACT;
+        if (name.startsWith(q)) return PREFIX;
+        if (name.contains(wordPrefix)) return WORD_PREFIX;
+        if (name.contains(q)) return SUBSTRING;
+        return NO_MATCH;
+    }
+
+    private static String[] tokens(String normalized) {
+        return normalized.isEmpty() ? new String[0] : normalized.split(" ");
+    }
+
+    private int insertionPoint(int ordinal, int count) {
+        int lo = 0, hi = count;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (compareByName(byName[mid], ordinal) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private boolean isAfter(int ordinal, String name, long id) {
+        if (name == null) return true;
+        int c = names[ordinal].compareTo(name);
+        return c != 0 ? c > 0 : meals[ordinal].getId() > id;
+    }
+
+    private int compareByName(int a, int b) {
+        int c = names[a].compareTo(names[b]);
+        return c != 0 ? c : Long.compare(meals[a].getId(), meals[b].getId());
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= meals.length) return;
+        int newCapacity = Math.max(capacity, meals.length * 2);
+        meals = Arrays.copyOf(meals, newCapacity);
+        names = Arrays.copyOf(names, newCapacity);
+        byName = Arrays.copyOf(byName, newCapacity);
+    }
+
+    private static long trigramKey(String s, int from) {
+        return ((long) s.charAt(from) << 32) | ((long) s.charAt(from + 1) << 16) | s.charAt(from + 2);
+    }
+
+    /** Per-query state: the normalized keyword, the scan budget and the running top-k. */
+    private final class Query {
+        private final String q;
+        private final String wordPrefix;
+        private final TopK top;
+        private int scanned;
+
+        Query(String q, int limit) {
+            this.q = q;
+            this.wordPrefix = " " + q;
+            this.top = new TopK(limit);
+        }
+
+        boolean hasBudget() {
+            return scanned < MAX_SCANNED;
+        }
+
+        void offer(int ordinal) {
+            scanned++;
+            int tier = tier(names[ordinal], q, wordPrefix);
+            if (tier != NO_MATCH) top.offer(ordinal, rank(tier, 0, names[ordinal].length()));
+        }
+
+        void offerTypoMatch(int ordinal, int typos) {
+            top.offer(ordinal, rank(FUZZY, typos, names[ordinal].length()));
+        }
+
+        private int rank(int tier, int typos, int length) {
+            return (tier << 20) | (Math.min(typos, 1023) << 10) | Math.min(length, 1023);
+        }
+    }
+
+    /** Fixed-size max-heap keeping the best {@code k} ordinals seen; the root is the worst kept. */
+    private final class TopK {
+        private final int[] ordinals;
+        private final int[] ranks;
+        private int size;
+
+        TopK(int k) {
+            ordinals = new int[k];
+            ranks = new int[k];
+        }
+
+        boolean isFull() {
+            return size == ordinals.length;
+        }
+
+        void offer(int ordinal, int rank) {
+            if (isFull() && compare(ordinal, rank, ordinals[0], ranks[0]) >= 0) return;
+            for (int i = 0; i < size; i++) {
+                if (ordinals[i] == ordinal) return;
+            }
+            if (size < ordinals.length) {
+                ordinals[size] = ordinal;
+                ranks[size] = rank;
+                siftUp(size++);
+            } else if (compare(ordinal, rank, ordinals[0], ranks[0]) < 0) {
+                ordinals[0] = ordinal;
+                ranks[0] = rank;
+                siftDown(0);
+            }
+        }
+
+        List<ManualMealResponse> drainBestFirst() {
+            ManualMealResponse[] result = new ManualMealResponse[size];
+            for (int i = result.length - 1; i >= 0; i--) {
+                result[i] = meals[ordinals[0]];
+                size--;
+                ordinals[0] = ordinals[size];
+                ranks[0] = ranks[size];
+                siftDown(0);
+            }
+            return List.of(result);
+        }
+
+        private int compare(int ordinalA, int rankA, int ordinalB, int rankB) {
+            if (rankA != rankB) return Integer.compare(rankA, rankB);
+            return compareByName(ordinalA, ordinalB);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (compare(ordinals[i], ranks[i], ordinals[parent], ranks[parent]) <= 0) return;
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int left = 2 * i + 1, right = left + 1, worst = i;
+                if (left < size && compare(ordinals[left], ranks[left], ordinals[worst], ranks[worst]) > 0) worst = left;
+                if (right < size && compare(ordinals[right], ranks[right], ordinals[worst], ranks[worst]) > 0) worst = right;
+                if (worst == i) return;
+                swap(i, worst);
+                i = worst;
+            }
+        }
+
+        private void swap(int a, int b) {
+            int o = ordinals[a];
+            ordinals[a] = ordinals[b];
+            ordinals[b] = o;
+            int r = ranks[a];
+            ranks[a] = ranks[b];
+            ranks[b] = r;
+        }
+    }
+
+    /** Burkhard-Keller tree over the word vocabulary, keyed by Levenshtein distance. */
+    private static final class BkTree {
+        private Node root;
+
+        // prev/curr are scratch rows at least as long as the longest word plus one
+        void add(String word, int[] prev, int[] curr) {
+            if (root == null) {
+                root = new Node(word);
+                return;
+            }
+            Node node = root;
+            while (true) {
+                int d = distance(word, node.word, 0, node.word.length(), Integer.MAX_VALUE - 1, prev, curr);
+                if (d == 0) return;
+                Node child = node.child(d);
+                if (child == null) {
+                    node.setChild(d, new Node(word));
+                    return;
+                }
+                node = child;
+            }
+        }
+
+        List<String> within(String word, int max, int limit, int[] prev, int[] curr) {
+            List<String> result = new ArrayList<>();
+            if (root == null || max <= 0) return result;
+
+            ArrayDeque<Node> stack = new ArrayDeque<>();
+            stack.push(root);
+            while (!stack.isEmpty() && result.size() < limit) {
+                Node node = stack.pop();
+                int d = distance(word, node.word, 0, node.word.length(), Integer.MAX_VALUE - 1, prev, curr);
+                if (d <= max) result.add(node.word);
+                int from = Math.max(1, d - max), to = Math.min(node.children.length - 1, d + max);
+                for (int i = from; i <= to; i++) {
+                    if (node.children[i] != null) stack.push(node.children[i]);
+                }
+            }
+            return result;
+        }
+
+        private static final class Node {
+            private final String word;
+            private Node[] children = new Node[0];
+
+            Node(String word) {
+                this.word = word;
+            }
+
+            Node child(int distance) {
+                return distance < children.length ? children[distance] : null;
+            }
+
+            void setChild(int distance, Node child) {
+                if (distance >= children.length) children = Arrays.copyOf(children, distance + 1);
+                children[distance] = child;
+            }
+        }
+    }
+
+    /** Growable posting list of ordinals, kept in insertion (ascending) order. */
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        // ordinals arrive in ascending order, so a repeated gram or word in one name only hits the tail
+        void addIfAbsent(int value) {
+            if (size > 0 && values[size - 1] == value) return;
+            if (size == values.length) values = Arrays.copyOf(values, size * 2);
+            values[size++] = value;
+        }
+    }
+}
@@ -10,18 +10,22 @@ import java.util.List;
 
 @Configuration
 public class CorsConfig {
+
+    // also used for the WebSocket handshake, which doesn't go through CorsConfigurationSource
+    static final List<String> ALLOWED_ORIGINS = List.of(
+            "http://localhost:8082",
+            "http://192.168.1.14:8082",
+            "http://192.168.1.9:8082",
+            "http://122.177.246.43:8082",
+            "http://122.177.242.229:8082"
+    );
+
     @Bean
     public CorsConfigurationSource corsConfigurationSource() {
 
         CorsConfiguration config = new CorsConfiguration();
 
-        config.setAllowedOrigins(List.of(
-                "http://localhost:8082",
-                "http://192.168.1.14:8082",
-                "http://192.168.1.9:8082",
-                "http://122.177.246.43:8082",
-                "http://122.177.242.229:8082"
-        ));
+        config.setAllowedOrigins(ALLOWED_ORIGINS);
 
         config.setAllowedMethods(List.of(
                 "GET", "POST", "PUT", "DELETE", "OPTIONS"
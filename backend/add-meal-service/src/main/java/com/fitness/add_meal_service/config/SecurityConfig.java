@@ -1,15 +1,26 @@
 package com.fitness.add_meal_service.config;
 
+import com.fitness.add_meal_service.security.JwtAuthenticationFilter;
+import com.fitness.add_meal_service.security.TokenHandshakeInterceptor;
+import com.fitness.add_meal_service.service.UserIdResolver;
+import com.fitness.add_meal_service.util.JwtUtil;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.config.Customizer;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+
+import java.util.Set;
 
 @Configuration
 @EnableWebSecurity
@@ -19,20 +30,39 @@ public class SecurityConfig {
         return new BCryptPasswordEncoder();
     }
 
+    /**
+     * Stateless bearer-token security: {@link JwtAuthenticationFilter} authenticates each request
+     * from its token, and every meals endpoint needs it; the catalog import and the actuator
+     * metrics also need {@code ROLE_ADMIN}, granted to the emails in {@code meals.admin-emails}.
+     * Only {@code /actuator/health} is public. The search stream is let through here so
+     * a handshake can carry its token as a query parameter; {@link TokenHandshakeInterceptor}
+     * refuses it unless that token or an Authorization header is valid.
+     */
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain securityFilterChain(
+            HttpSecurity http,
+            JwtUtil jwtUtil,
+            UserIdResolver userIdResolver,
+            @Value("${meals.admin-emails:}") Set<String> adminEmails
+    ) throws Exception {
 
         http
                 .cors(Customizer.withDefaults())
                 .csrf(csrf -> csrf.disable())
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
                         .requestMatchers(
-                                "/api/meals/**",
+                                "/api/meals/search/stream",
+                                "/actuator/health",
                                 "/error"
                         ).permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/meals/manual-meals/import").hasRole("ADMIN")
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .anyRequest().authenticated()
                 )
+                .exceptionHandling(e -> e.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+                .addFilterBefore(new JwtAuthenticationFilter(jwtUtil, userIdResolver, adminEmails), UsernamePasswordAuthenticationFilter.class)
                 .httpBasic(AbstractHttpConfigurer::disable)
                 .formLogin(AbstractHttpConfigurer::disable);
 
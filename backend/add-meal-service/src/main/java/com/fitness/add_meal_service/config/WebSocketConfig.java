@@ -0,0 +1,28 @@
+package com.fitness.add_meal_service.config;
+
+import com.fitness.add_meal_service.controller.MealSearchStreamHandler;
+import com.fitness.add_meal_service.security.TokenHandshakeInterceptor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+@Configuration
+@EnableWebSocket
+public class WebSocketConfig implements WebSocketConfigurer {
+
+    private final MealSearchStreamHandler mealSearchStreamHandler;
+    private final TokenHandshakeInterceptor tokenHandshakeInterceptor;
+
+    public WebSocketConfig(MealSearchStreamHandler mealSearchStreamHandler, TokenHandshakeInterceptor tokenHandshakeInterceptor) {
+        this.mealSearchStreamHandler = mealSearchStreamHandler;
+        this.tokenHandshakeInterceptor = tokenHandshakeInterceptor;
+    }
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(mealSearchStreamHandler, "/api/meals/search/stream")
+                .addInterceptors(tokenHandshakeInterceptor)
+                .setAllowedOrigins(CorsConfig.ALLOWED_ORIGINS.toArray(new String[0]));
+    }
+}
@@ -0,0 +1,115 @@
+package com.fitness.add_meal_service.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.add_meal_service.dto.MealSearchUpdate;
+import com.fitness.add_meal_service.service.ManualMealService;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.ConcurrentWebSocketSessionDecorator;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Search-as-you-type over a single WebSocket.
+ *
+ * The client sends the current contents of the search box as a text frame on every keystroke.
+ * Each session pipes those frames through {@code switchMap}, so a lookup still running for an
+ * older prefix is cancelled and only the result for the latest keyword is pushed back as a
+ * {@link MealSearchUpdate}. Handshakes are authenticated by
+ * {@link com.fitness.add_meal_service.security.TokenHandshakeInterceptor}. At most
+ * {@link #MAX_PENDING_KEYSTROKES} frames wait for the pipeline; a client that outruns it is
+ * disconnected rather than buffered without limit.
+ */
+@Component
+public class MealSearchStreamHandler extends TextWebSocketHandler {
+
+    private static final String KEYSTROKES = "keystrokes";
+    private static final String SUBSCRIPTION = "subscription";
+
+    private static final int MAX_KEYWORD_LENGTH = 100;
+    private static final int MAX_PENDING_KEYSTROKES = 32;
+    private static final int SEND_TIME_LIMIT_MS = 5_000;
+    private static final int SEND_BUFFER_LIMIT = 256 * 1024;
+
+    private final ManualMealService manualMealService;
+    private final ObjectMapper objectMapper;
+
+    public MealSearchStreamHandler(ManualMealService manualMealService, ObjectMapper objectMapper) {
+        this.manualMealService = manualMealService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void afterConnectionEstablished(WebSocketSession session) {
+        // replies are sent from reactor threads, so serialize writes per session
+        WebSocketSession out = new ConcurrentWebSocketSessionDecorator(session, SEND_TIME_LIMIT_MS, SEND_BUFFER_LIMIT);
+        Sinks.Many<String> keystrokes = Sinks.many().unicast()
+                .onBackpressureBuffer(Queues.<String>get(MAX_PENDING_KEYSTROKES).get());
+
+        Disposable subscription = keystrokes.asFlux()
+                .map(String::trim)
+                .distinctUntilChanged()
+                .switchMap(this::lookup)
+                .subscribe(
+                        update -> send(out, update),
+                        error -> closeQuietly(out, CloseStatus.SERVER_ERROR)
+                );
+
+        session.getAttributes().put(KEYSTROKES, keystrokes);
+        session.getAttributes().put(SUBSCRIPTION, subscription);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) {
+        Sinks.Many<String> keystrokes = (Sinks.Many<String>) session.getAttributes().get(KEYSTROKES);
+        String keyword = message.getPayload();
+        if (keystrokes == null || keyword.length() > MAX_KEYWORD_LENGTH) return;
+        if (keystrokes.tryEmitNext(keyword) == Sinks.EmitResult.FAIL_OVERFLOW) {
+            closeQuietly(session, CloseStatus.POLICY_VIOLATION);
+        }
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Disposable subscription = (Disposable) session.getAttributes().remove(SUBSCRIPTION);
+        if (subscription != null) subscription.dispose();
+        session.getAttributes().remove(KEYSTROKES);
+    }
+
+    private Flux<MealSearchUpdate> lookup(String keyword) {
+        if (keyword.isEmpty()) {
+            return Flux.just(new MealSearchUpdate(keyword, List.of()));
+        }
+        // the DB fallback blocks, so keep lookups off the WebSocket container threads
+        return Mono.fromCallable(() -> new MealSearchUpdate(keyword, manualMealService.search(keyword)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flux();
+    }
+
+    private void send(WebSocketSession session, MealSearchUpdate update) {
+        try {
+            session.sendMessage(new TextMessage(objectMapper.writeValueAsString(update)));
+        } catch (IOException e) {
+            closeQuietly(session, CloseStatus.SERVER_ERROR);
+        }
+    }
+
+    private void closeQuietly(WebSocketSession session, CloseStatus status) {
+        try {
+            session.close(status);
+        } catch (IOException ignored) {
+            // already gone
+        }
+    }
+}
@@ -2,17 +2,26 @@ package com.fitness.add_meal_service.controller;
 
 import com.fitness.add_meal_service.dto.ManualMealRequest;
 import com.fitness.add_meal_service.dto.ManualMealResponse;
+import com.fitness.add_meal_service.dto.NutrientQueryRequest;
+import com.fitness.add_meal_service.service.ManualMealImportService;
 import com.fitness.add_meal_service.service.ManualMealService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/meals")
@@ -21,19 +30,64 @@ public class SearchMealController {
     @Autowired
     private ManualMealService manualMealService;
 
+    @Autowired
+    private ManualMealImportService manualMealImportService;
+
+    /**
+     * Top 10 ranked matches, or with {@code size} and/or {@code cursor} a keyset-paginated
+     * {@code {items, nextCursor}} page over every match in name order.
+     */
     @GetMapping("/search")
-    public ResponseEntity<List<ManualMealResponse>> searchMeals(@RequestParam String keyword) {
+    public ResponseEntity<?> searchMeals(
+            @RequestParam String keyword,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size
+    ) {
         System.out.println("API hit");
         if (keyword == null || keyword.trim().length() < 1) {
             return ResponseEntity.badRequest().build();
         }
 
+        if (cursor != null || size != null) {
+            return manualMealService.searchPage(keyword, cursor, size);
+        }
         List<ManualMealResponse> results = manualMealService.search(keyword);
         return ResponseEntity.ok(results);
     }
 
+    @GetMapping("/nutrients")
+    public ResponseEntity<?> queryByNutrients(NutrientQueryRequest request) {
+        return manualMealService.queryByNutrients(request);
+    }
+
+    @GetMapping("/manual-meals/{id}/similar")
+    public ResponseEntity<?> findSimilarMeals(@PathVariable Long id, @RequestParam(required = false) Integer limit) {
+        return manualMealService.findSimilar(id, limit);
+    }
+
     @PostMapping("/manual-meals")
     public ResponseEntity<?> addManualMeal(@RequestBody ManualMealRequest manualMealRequest) {
         return manualMealService.addManualMeal(manualMealRequest);
     }
+
+    /**
+     * Streams a catalog file into manual_meals: {@code text/csv} with a header row, or
+     * {@code application/x-ndjson} with one ManualMealRequest object per line.
+     */
+    @PostMapping(value = "/manual-meals/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importManualMeals(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body
+    ) throws IOException {
+        ManualMealImportService.Format format = contentType.startsWith("text/csv")
+                ? ManualMealImportService.Format.CSV
+                : ManualMealImportService.Format.NDJSON;
+        try {
+            return ResponseEntity.ok(manualMealImportService.importMeals(body, format));
+        } catch (IllegalArgumentException e) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", e.getMessage());
+            return ResponseEntity.badRequest().body(error);
+        }
+    }
 }
@@ -1,50 +1,69 @@
 package com.fitness.add_meal_service.controller;
 
+import com.fitness.add_meal_service.dto.CopyMealsRequest;
+import com.fitness.add_meal_service.dto.MealChangesPushRequest;
+import com.fitness.add_meal_service.dto.MealDayPush;
+import com.fitness.add_meal_service.dto.MealDayPushResult;
+import com.fitness.add_meal_service.dto.MealDayVersion;
+import com.fitness.add_meal_service.dto.MealItemDto;
+import com.fitness.add_meal_service.dto.MealSlotTotals;
+import com.fitness.add_meal_service.dto.UpdateMealsBatchRequest;
 import com.fitness.add_meal_service.dto.UpdateMealsRequest;
 import com.fitness.add_meal_service.dto.UserDailyMealsResponse;
-import com.fitness.add_meal_service.model.UserAccount;
-import com.fitness.add_meal_service.model.UserDailyMeals;
-import com.fitness.add_meal_service.repository.UserAccountRepository;
+import com.fitness.add_meal_service.model.MealSlot;
+import com.fitness.add_meal_service.security.AuthenticatedUser;
 import com.fitness.add_meal_service.service.UserDailyMealsService;
-import com.fitness.add_meal_service.util.JwtUtil;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 
 @RestController
 @RequestMapping("/api/meals")
 public class UpdateMeals {
 
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int MAX_RANGE_DAYS = 366;
+    private static final int MAX_ROLLUP_RANGE_DAYS = 5 * 366;
+    private static final int DEFAULT_CHANGES_PAGE = 100;
+    private static final int MAX_CHANGES_PAGE = 500;
+    private static final int MAX_BATCH_DAYS = 62;
+
     private final UserDailyMealsService userDailyMealsService;
-    private final JwtUtil jwtUtil;
-    private final UserAccountRepository userAccountRepository;
 
-    public UpdateMeals(
-            UserDailyMealsService userDailyMealsService,
-            JwtUtil jwtUtil,
-            UserAccountRepository userAccountRepository
-    ) {
+    public UpdateMeals(UserDailyMealsService userDailyMealsService) {
         this.userDailyMealsService = userDailyMealsService;
-        this.jwtUtil = jwtUtil;
-        this.userAccountRepository = userAccountRepository;
     }
 
     @PostMapping("/update-meals")
     public ResponseEntity<?> updateMeals(
             @RequestBody UpdateMealsRequest request,
-            @RequestHeader(value = "Authorization", required = false) String authorization
+            @AuthenticationPrincipal AuthenticatedUser user
     ) {
         if (request == null) {
             return ResponseEntity.badRequest().body(error("Request body is required"));
@@ -60,9 +79,9 @@ public class UpdateMeals {
             return ResponseEntity.badRequest().body(error("Invalid mealDate. Expected yyyy-MM-dd"));
         }
 
-        Long userId = resolveUserId(request.getUserId(), authorization);
+        Long userId = resolveUserId(request.getUserId(), user);
         if (userId == null) {
-            return ResponseEntity.badRequest().body(error("userId is required (either in payload or resolvable from Authorization token)"));
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error("userId does not match the authenticated user"));
         }
 
         boolean isBulk = request.getMeals() != null;
@@ -72,11 +91,11 @@ public class UpdateMeals {
             return ResponseEntity.badRequest().body(error("Invalid payload. Provide either `meals` (bulk) or `mealType` (single)."));
         }
 
-        UserDailyMeals saved;
+        double totalCalories;
         if (isBulk) {
-            saved = userDailyMealsService.upsertBulk(userId, mealDate, request.getMeals());
+            totalCalories = userDailyMealsService.upsertBulk(userId, mealDate, request.getMeals());
         } else {
-            saved = userDailyMealsService.upsertSingle(
+            totalCalories = userDailyMealsService.upsertSingle(
                     userId,
                     mealDate,
                     request.getMealType(),
@@ -87,17 +106,135 @@ public class UpdateMeals {
 
         Map<String, Object> res = new HashMap<>();
         res.put("message", "Meals updated successfully");
-        res.put("userId", saved.getUserId());
-        res.put("mealDate", saved.getMealDate().toString());
-        res.put("totalCalories", saved.getTotalCalories());
+        res.put("userId", userId);
+        res.put("mealDate", mealDate.toString());
+        res.put("totalCalories", totalCalories);
+        return ResponseEntity.ok(res);
+    }
+
+    /**
+     * Several update-meals writes, e.g. a week of offline edits, for one user in one transaction.
+     * The whole batch is rejected if any entry is invalid; otherwise every written day is returned
+     * with its new version and total calories.
+     */
+    @PostMapping("/update-meals/batch")
+    public ResponseEntity<?> updateMealsBatch(
+            @RequestBody UpdateMealsBatchRequest request,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        if (request == null || request.getDays() == null || request.getDays().isEmpty()) {
+            return ResponseEntity.badRequest().body(error("days is required"));
+        }
+        if (request.getDays().size() > MAX_BATCH_DAYS) {
+            return ResponseEntity.badRequest().body(error("At most " + MAX_BATCH_DAYS + " entries per batch"));
+        }
+        for (int i = 0; i < request.getDays().size(); i++) {
+            UpdateMealsRequest day = request.getDays().get(i);
+            if (day == null || parseDate(day.getMealDate()) == null) {
+                return ResponseEntity.badRequest().body(error("days[" + i + "]: mealDate is required (yyyy-MM-dd)"));
+            }
+            boolean isSingle = day.getMealType() != null && !day.getMealType().trim().isEmpty();
+            if (day.getMeals() == null && !isSingle) {
+                return ResponseEntity.badRequest().body(error("days[" + i + "]: provide either `meals` (bulk) or `mealType` (single)."));
+            }
+        }
+        Long userId = resolveUserId(request.getUserId(), user);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error("userId does not match the authenticated user"));
+        }
+
+        Map<String, Object> res = new HashMap<>();
+        res.put("message", "Meals updated successfully");
+        res.put("userId", userId);
+        res.put("days", userDailyMealsService.upsertBatch(userId, request.getDays()));
+        return ResponseEntity.ok(res);
+    }
+
+    /**
+     * Copies a day's meals (all slots, or {@code mealTypes}) onto a list or an inclusive range of
+     * other days in one statement, without the slots passing through the client. Slots that are
+     * empty on the source day are left untouched on the targets.
+     */
+    @PostMapping("/copy")
+    public ResponseEntity<?> copyMeals(
+            @RequestBody CopyMealsRequest request,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        if (request == null) {
+            return ResponseEntity.badRequest().body(error("Request body is required"));
+        }
+        LocalDate sourceDate = parseDate(request.getSourceDate());
+        if (sourceDate == null) {
+            return ResponseEntity.badRequest().body(error("sourceDate is required (yyyy-MM-dd)"));
+        }
+
+        Set<LocalDate> targetDates = new TreeSet<>();
+        if (request.getTargetDates() != null && !request.getTargetDates().isEmpty()) {
+            for (String raw : request.getTargetDates()) {
+                LocalDate date = parseDate(raw);
+                if (date == null) {
+                    return ResponseEntity.badRequest().body(error("Invalid target date: " + raw + ". Expected yyyy-MM-dd"));
+                }
+                targetDates.add(date);
+            }
+        } else {
+            LocalDate from = parseDate(request.getTargetFrom());
+            LocalDate to = parseDate(request.getTargetTo());
+            if (from == null || to == null) {
+                return ResponseEntity.badRequest().body(error("Provide either `targetDates` or `targetFrom` and `targetTo` (yyyy-MM-dd)"));
+            }
+            if (to.isBefore(from) || from.plusDays(MAX_RANGE_DAYS).isBefore(to)) {
+                return ResponseEntity.badRequest().body(error("targetTo must be on or after targetFrom and at most " + MAX_RANGE_DAYS + " days later"));
+            }
+            for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) targetDates.add(date);
+        }
+        if (targetDates.size() > MAX_RANGE_DAYS) {
+            return ResponseEntity.badRequest().body(error("At most " + MAX_RANGE_DAYS + " target dates"));
+        }
+        if (targetDates.contains(sourceDate)) {
+            return ResponseEntity.badRequest().body(error("Target dates must not include sourceDate"));
+        }
+
+        Set<MealSlot> slots = EnumSet.allOf(MealSlot.class);
+        if (request.getMealTypes() != null && !request.getMealTypes().isEmpty()) {
+            slots.clear();
+            for (String mealType : request.getMealTypes()) {
+                MealSlot slot = MealSlot.from(mealType);
+                if (slot == null) {
+                    return ResponseEntity.badRequest().body(error("Unknown mealType: " + mealType));
+                }
+                slots.add(slot);
+            }
+        }
+
+        Long userId = resolveUserId(request.getUserId(), user);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error("userId does not match the authenticated user"));
+        }
+
+        int copied = userDailyMealsService.copyDay(userId, sourceDate, targetDates, slots);
+        if (copied == 0) {
+            return ResponseEntity.status(404).body(error("No meals stored for " + sourceDate));
+        }
+        Map<String, Object> res = new HashMap<>();
+        res.put("message", "Meals copied successfully");
+        res.put("userId", userId);
+        res.put("sourceDate", sourceDate.toString());
+        res.put("daysCopied", copied);
         return ResponseEntity.ok(res);
     }
 
+    /**
+     * The stored day, with a strong ETag (row id and version) and Last-Modified. A conditional
+     * request for an unchanged day gets 304, answered from the version alone without reading the
+     * slots. Days with unflushed buffered writes are always returned in full, without validators.
+     */
     @GetMapping("/date/{mealDate}")
     public ResponseEntity<?> getMealsByDate(
             @PathVariable String mealDate,
             @RequestParam(value = "userId", required = false) Long userIdFromRequest,
-            @RequestHeader(value = "Authorization", required = false) String authorization
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @RequestHeader HttpHeaders headers
     ) {
         if (mealDate == null || mealDate.trim().isEmpty()) {
             return ResponseEntity.badRequest().body(error("mealDate path variable is required (yyyy-MM-dd)"));
@@ -110,34 +247,307 @@ public class UpdateMeals {
             return ResponseEntity.badRequest().body(error("Invalid mealDate. Expected yyyy-MM-dd"));
         }
 
-        Long userId = resolveUserId(userIdFromRequest, authorization);
+        Long userId = resolveUserId(userIdFromRequest, user);
         if (userId == null) {
-            return ResponseEntity.badRequest().body(error("userId is required (either as query param or resolvable from Authorization token)"));
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error("userId does not match the authenticated user"));
+        }
+
+        if (!headers.getIfNoneMatch().isEmpty() || headers.getIfModifiedSince() >= 0) {
+            Optional<MealDayVersion> current = userDailyMealsService.findVersion(userId, parsedDate);
+            if (current.isPresent() && notModified(current.get(), headers)) {
+                return withValidators(ResponseEntity.status(HttpStatus.NOT_MODIFIED), current.get()).build();
+            }
         }
 
-        Optional<UserDailyMeals> mealsOpt = userDailyMealsService.getByUserAndDate(userId, parsedDate);
-        if (mealsOpt.isEmpty()) {
+        Optional<UserDailyMealsResponse> response = userDailyMealsService.getResponse(userId, parsedDate);
+        if (response.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
+        UserDailyMealsResponse day = response.get();
+        if (day.getVersion() == null) {
+            return ResponseEntity.ok(day);
+        }
+        return withValidators(ResponseEntity.ok(), new MealDayVersion(day.getId(), day.getVersion(), day.getUpdatedAt()))
+                .body(day);
+    }
 
-        UserDailyMealsResponse response = userDailyMealsService.toResponse(mealsOpt.get());
-        return ResponseEntity.ok(response);
+    /**
+     * Every stored day of the user in {@code [from, to]} (at most a year), streamed as a JSON array,
+     * or as NDJSON when the client accepts {@code application/x-ndjson}. {@code fields=calories}
+     * returns only the calorie columns.
+     */
+    @GetMapping("/range")
+    public ResponseEntity<?> getMealsInRange(
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestParam(value = "userId", required = false) Long userIdFromRequest,
+            @AuthenticationPrincipal AuthenticatedUser user,
+            @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept
+    ) {
+        LocalDate fromDate = parseDate(from);
+        LocalDate toDate = parseDate(to);
+        if (fromDate == null || toDate == null) {
+            return ResponseEntity.badRequest().body(error("Invalid from/to. Expected yyyy-MM-dd"));
+        }
+        if (toDate.isBefore(fromDate) || fromDate.plusDays(MAX_RANGE_DAYS).isBefore(toDate)) {
+            return ResponseEntity.badRequest().body(error("to must be on or after from and at most " + MAX_RANGE_DAYS + " days later"));
+        }
+        if (fields != null && !"calories".equals(fields)) {
+            return ResponseEntity.badRequest().body(error("fields must be 'calories' when given"));
+        }
+        Long userId = resolveUserId(userIdFromRequest, user);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error("userId does not match the authenticated user"));
+        }
+
+        boolean caloriesOnly = fields != null;
+        boolean ndjson = accept != null && accept.contains(NDJSON);
+        StreamingResponseBody body = out ->
+                userDailyMealsService.streamRange(userId, fromDate, toDate, caloriesOnly, ndjson, out);
+        return ResponseEntity.ok()
+                .contentType(ndjson ? MediaType.parseMediaType(NDJSON) : MediaType.APPLICATION_JSON)
+                .body(body);
     }
 
-    private Long resolveUserId(Long userIdFromPayload, String authorization) {
-        if (userIdFromPayload != null) return userIdFromPayload;
-        if (authorization == null || authorization.isBlank()) return null;
+    /**
+     * Weekly and monthly calorie and macro totals overlapping {@code [from, to]}, from the rollup
+     * tables: a year is about 65 rows instead of 365 days.
+     */
+    @GetMapping("/rollups")
+    public ResponseEntity<?> getRollups(
+            @RequestParam String from,
+            @RequestParam String to,
+            @RequestParam(value = "userId", required = false) Long userIdFromRequest,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        LocalDate fromDate = parseDate(from);
+        LocalDate toDate = parseDate(to);
+        if (fromDate == null || toDate == null) {
+            return ResponseEntity.badRequest().body(error("Invalid from/to. Expected yyyy-MM-dd"));
+        }
+        if (toDate.isBefore(fromDate) || fromDate.plusDays(MAX_ROLLUP_RANGE_DAYS).isBefore(toDate)) {
+            return ResponseEntity.badRequest().body(error("to must be on or after from and at most " + MAX_ROLLUP_RANGE_DAYS + " days later"));
+        }
+        Long userId = resolveUserId(userIdFromRequest, user);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error("userId does not match the authenticated user"));
+        }
+
+        return ResponseEntity.ok(userDailyMealsService.getRollups(userId, fromDate, toDate));
+    }
 
+    /**
+     * Delta sync: the user's days written after cursor {@code since} (0 for everything), oldest
+     * change first, and the cursor to send next time. One call replaces a GET per day on resume.
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<?> getChanges(
+            @RequestParam(value = "since", defaultValue = "0") long since,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            @RequestParam(value = "userId", required = false) Long userIdFromRequest,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        if (since < 0) {
+            return ResponseEntity.badRequest().body(error("since must not be negative"));
+        }
+        int pageSize = limit == null ? DEFAULT_CHANGES_PAGE : limit;
+        if (pageSize < 1 || pageSize > MAX_CHANGES_PAGE) {
+            return ResponseEntity.badRequest().body(error("limit must be between 1 and " + MAX_CHANGES_PAGE));
+        }
+        Long userId = resolveUserId(userIdFromRequest, user);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error("userId does not match the authenticated user"));
+        }
+
+        return ResponseEntity.ok(userDailyMealsService.getChanges(userId, since, pageSize));
+    }
+
+    /**
+     * Stores whole days edited offline, each in its own transaction, and reports each day's new
+     * version or, for a day sent with a stale {@code baseVersion}, the conflict.
+     */
+    @PostMapping("/changes")
+    public ResponseEntity<?> pushChanges(
+            @RequestBody MealChangesPushRequest request,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        if (request == null || request.getDays() == null || request.getDays().isEmpty()) {
+            return ResponseEntity.badRequest().body(error("days is required"));
+        }
+        if (request.getDays().size() > MAX_BATCH_DAYS) {
+            return ResponseEntity.badRequest().body(error("At most " + MAX_BATCH_DAYS + " days per push"));
+        }
+        List<LocalDate> dates = new ArrayList<>();
+        for (MealDayPush day : request.getDays()) {
+            LocalDate date = day == null ? null : parseDate(day.getMealDate());
+            if (date == null) {
+                return ResponseEntity.badRequest().body(error("Every day needs a valid mealDate (yyyy-MM-dd)"));
+            }
+            dates.add(date);
+        }
+        Long userId = resolveUserId(request.getUserId(), user);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error("userId does not match the authenticated user"));
+        }
+
+        List<MealDayPushResult> results = new ArrayList<>();
+        for (int i = 0; i < dates.size(); i++) {
+            MealDayPush day = request.getDays().get(i);
+            results.add(userDailyMealsService.pushDay(userId, dates.get(i), day.getMeals(), day.getBaseVersion()));
+        }
+
+        Map<String, Object> res = new HashMap<>();
+        res.put("userId", userId);
+        res.put("days", results);
+        return ResponseEntity.ok(res);
+    }
+
+    /** Appends one item to a slot; responds with the slot's item count and calories. */
+    @PostMapping("/{mealDate}/{mealType}/items")
+    public ResponseEntity<?> addItem(
+            @PathVariable String mealDate,
+            @PathVariable String mealType,
+            @RequestBody MealItemDto item,
+            @RequestParam(value = "userId", required = false) Long userIdFromRequest,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        if (item == null) {
+            return ResponseEntity.badRequest().body(error("Request body is required"));
+        }
+        LocalDate parsedDate = parseDate(mealDate);
+        if (parsedDate == null) {
+            return ResponseEntity.badRequest().body(error("Invalid mealDate. Expected yyyy-MM-dd"));
+        }
+        MealSlot slot = MealSlot.from(mealType);
+        if (slot == null) {
+            return ResponseEntity.badRequest().body(error("Unknown mealType: " + mealType));
+        }
+        Long userId = resolveUserId(userIdFromRequest, user);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error("userId does not match the authenticated user"));
+        }
+
+        return ResponseEntity.ok(userDailyMealsService.addItem(userId, parsedDate, slot, item));
+    }
+
+    /** Replaces the item at {@code index} (0-based) in a slot. */
+    @PutMapping("/{mealDate}/{mealType}/items/{index}")
+    public ResponseEntity<?> replaceItem(
+            @PathVariable String mealDate,
+            @PathVariable String mealType,
+            @PathVariable int index,
+            @RequestBody MealItemDto item,
+            @RequestParam(value = "userId", required = false) Long userIdFromRequest,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        if (item == null) {
+            return ResponseEntity.badRequest().body(error("Request body is required"));
+        }
+        LocalDate parsedDate = parseDate(mealDate);
+        if (parsedDate == null) {
+            return ResponseEntity.badRequest().body(error("Invalid mealDate. Expected yyyy-MM-dd"));
+        }
+        MealSlot slot = MealSlot.from(mealType);
+        if (slot == null) {
+            return ResponseEntity.badRequest().body(error("Unknown mealType: " + mealType));
+        }
+        if (index < 0) {
+            return ResponseEntity.badRequest().body(error("index must not be negative"));
+        }
+        Long userId = resolveUserId(userIdFromRequest, user);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error("userId does not match the authenticated user"));
+        }
+
+        Optional<MealSlotTotals> result = userDailyMealsService.replaceItem(userId, parsedDate, slot, index, item);
+        if (result.isEmpty()) {
+            return ResponseEntity.status(404).body(error("No item at index " + index));
+        }
+        return ResponseEntity.ok(result.get());
+    }
+
+    /** Removes the item at {@code index} (0-based) from a slot. */
+    @DeleteMapping("/{mealDate}/{mealType}/items/{index}")
+    public ResponseEntity<?> removeItem(
+            @PathVariable String mealDate,
+            @PathVariable String mealType,
+            @PathVariable int index,
+            @RequestParam(value = "userId", required = false) Long userIdFromRequest,
+            @AuthenticationPrincipal AuthenticatedUser user
+    ) {
+        LocalDate parsedDate = parseDate(mealDate);
+        if (parsedDate == null) {
+            return ResponseEntity.badRequest().body(error("Invalid mealDate. Expected yyyy-MM-dd"));
+        }
+        MealSlot slot = MealSlot.from(mealType);
+        if (slot == null) {
+            return ResponseEntity.badRequest().body(error("Unknown mealType: " + mealType));
+        }
+        if (index < 0) {
+            return ResponseEntity.badRequest().body(error("index must not be negative"));
+        }
+        Long userId = resolveUserId(userIdFromRequest, user);
+        if (userId == null) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error("userId does not match the authenticated user"));
+        }
+
+        Optional<MealSlotTotals> result = userDailyMealsService.removeItem(userId, parsedDate, slot, index);
+        if (result.isEmpty()) {
+            return ResponseEntity.status(404).body(error("No item at index " + index));
+        }
+        return ResponseEntity.ok(result.get());
+    }
+
+    // If-None-Match takes precedence over If-Modified-Since (RFC 9110 13.2.2)
+    private static boolean notModified(MealDayVersion current, HttpHeaders request) {
+        List<String> ifNoneMatch = request.getIfNoneMatch();
+        if (!ifNoneMatch.isEmpty()) {
+            String etag = opaqueTag(current.etag());
+            for (String tag : ifNoneMatch) {
+                if ("*".equals(tag.trim()) || opaqueTag(tag).equals(etag)) return true;
+            }
+            return false;
+        }
+        long since = request.getIfModifiedSince();
+        return since >= 0 && current.updatedAt() != null
+                && epochMillis(current.updatedAt()) / 1000 <= since / 1000;
+    }
+
+    // If-None-Match uses weak comparison: W/ and the quotes are ignored
+    private static String opaqueTag(String tag) {
+        String t = tag.trim();
+        if (t.startsWith("W/")) t = t.substring(2);
+        if (t.length() >= 2 && t.startsWith("\"") && t.endsWith("\"")) t = t.substring(1, t.length() - 1);
+        return t;
+    }
+
+    private static <B extends ResponseEntity.HeadersBuilder<B>> B withValidators(B builder, MealDayVersion version) {
+        builder.eTag(version.etag());
+        if (version.updatedAt() != null) builder.lastModified(epochMillis(version.updatedAt()));
+        return builder;
+    }
+
+    // updated_at is written as server-local time
+    private static long epochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private LocalDate parseDate(String raw) {
+        if (raw == null || raw.trim().isEmpty()) return null;
         try {
-            String email = jwtUtil.extractEmailFromToken(authorization);
-            if (email == null || email.isBlank()) return null;
-            Optional<UserAccount> userOpt = userAccountRepository.findByEmail(email);
-            return userOpt.map(UserAccount::getId).orElse(null);
-        } catch (Exception e) {
+            return LocalDate.parse(raw.trim());
+        } catch (DateTimeParseException e) {
             return null;
         }
     }
 
+    // the token decides whose days are touched; a userId sent alongside it must be the same user
+    private Long resolveUserId(Long userIdFromPayload, AuthenticatedUser user) {
+        if (userIdFromPayload != null && !userIdFromPayload.equals(user.userId())) return null;
+        return user.userId();
+    }
+
     private Map<String, Object> error(String message) {
         Map<String, Object> m = new HashMap<>();
         m.put("error", message);
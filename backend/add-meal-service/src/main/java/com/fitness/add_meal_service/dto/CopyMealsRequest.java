@@ -0,0 +1,25 @@
+package com.fitness.add_meal_service.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Copies a day onto other days: { userId, sourceDate, targetDates: [...] } or
+ * { userId, sourceDate, targetFrom, targetTo }, optionally limited to { mealTypes: [...] }.
+ */
+@Data
+public class CopyMealsRequest {
+    private Long userId;
+    private String sourceDate; // yyyy-MM-dd
+
+    // either a list of days...
+    private List<String> targetDates;
+
+    // ...or an inclusive range
+    private String targetFrom;
+    private String targetTo;
+
+    // all slots when absent
+    private List<String> mealTypes;
+}
@@ -0,0 +1,18 @@
+package com.fitness.add_meal_service.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class ManualMealImportReport {
+    private long rowsRead;
+    private long inserted;
+    private long duplicatesInFile;
+    private long alreadyInCatalog;
+    private long rejected;
+    private List<String> rejects = new ArrayList<>(); // first few reject reasons, prefixed with line number
+    private long elapsedMs;
+    private double rowsPerSecond;
+}
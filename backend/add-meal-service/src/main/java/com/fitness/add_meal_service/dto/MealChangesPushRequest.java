@@ -0,0 +1,12 @@
+package com.fitness.add_meal_service.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/** Days edited offline: { userId, days: [ {mealDate, meals, baseVersion}, ... ] } */
+@Data
+public class MealChangesPushRequest {
+    private Long userId;
+    private List<MealDayPush> days;
+}
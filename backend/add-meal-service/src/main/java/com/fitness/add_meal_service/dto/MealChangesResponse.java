@@ -0,0 +1,18 @@
+package com.fitness.add_meal_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Days changed since the client's cursor, oldest change first. {@code cursor} is the value to send
+ * as {@code since} next time; with {@code hasMore} the client should ask again right away.
+ */
+@Data
+@AllArgsConstructor
+public class MealChangesResponse {
+    private long cursor;
+    private boolean hasMore;
+    private List<UserDailyMealsResponse> days;
+}
@@ -0,0 +1,17 @@
+package com.fitness.add_meal_service.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * One whole day to store, as in a bulk update-meals. With {@code baseVersion} (the version the
+ * client last saw, 0 for a day it has never seen) the day is only written if it is still at
+ * that version.
+ */
+@Data
+public class MealDayPush {
+    private String mealDate; // yyyy-MM-dd
+    private List<MealSlotDto> meals;
+    private Long baseVersion;
+}
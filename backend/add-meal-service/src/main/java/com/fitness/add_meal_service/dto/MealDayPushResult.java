@@ -0,0 +1,14 @@
+package com.fitness.add_meal_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/** Outcome of one pushed day: its version afterwards, or the stored version it conflicted with. */
+@Data
+@AllArgsConstructor
+public class MealDayPushResult {
+    private String mealDate;
+    private boolean conflict;
+    private Long version;
+    private Double totalCalories;
+}
@@ -0,0 +1,12 @@
+package com.fitness.add_meal_service.dto;
+
+import java.time.LocalDateTime;
+
+/** What a conditional GET of a day needs: enough to build its validators without reading the slots. */
+public record MealDayVersion(Long id, long version, LocalDateTime updatedAt) {
+
+    /** Strong ETag: row ids are never reused and every write bumps the version. */
+    public String etag() {
+        return "\"" + id + "-" + version + "\"";
+    }
+}
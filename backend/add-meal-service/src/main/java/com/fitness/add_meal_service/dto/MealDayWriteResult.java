@@ -0,0 +1,13 @@
+package com.fitness.add_meal_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/** A day after a batch write: its new version and total calories. */
+@Data
+@AllArgsConstructor
+public class MealDayWriteResult {
+    private String mealDate;
+    private Long version;
+    private Double totalCalories;
+}
@@ -0,0 +1,13 @@
+package com.fitness.add_meal_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class MealSearchPage {
+    private List<ManualMealResponse> items;
+    private String nextCursor; // null on the last page
+}
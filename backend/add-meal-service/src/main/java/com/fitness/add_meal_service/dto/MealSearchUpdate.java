@@ -0,0 +1,16 @@
+package com.fitness.add_meal_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Pushed on /api/meals/search/stream: results for the latest keyword the client typed.
+ */
+@Data
+@AllArgsConstructor
+public class MealSearchUpdate {
+    private String keyword;
+    private List<ManualMealResponse> results;
+}
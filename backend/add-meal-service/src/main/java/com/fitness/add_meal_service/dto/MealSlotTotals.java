@@ -0,0 +1,14 @@
+package com.fitness.add_meal_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/** A slot's state after an item-level change: enough for the client to reconcile, not the whole day. */
+@Data
+@AllArgsConstructor
+public class MealSlotTotals {
+    private String mealType;
+    private int itemCount;
+    private Double slotCalories;
+    private Double totalCalories;
+}
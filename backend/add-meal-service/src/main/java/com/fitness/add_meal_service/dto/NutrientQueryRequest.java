@@ -0,0 +1,25 @@
+package com.fitness.add_meal_service.dto;
+
+import lombok.Data;
+
+/**
+ * Query parameters of GET /api/meals/nutrients. Bounds are inclusive and optional; e.g.
+ * {@code ?minProtein=20&maxFats=5&minCalories=150&maxCalories=300&sort=proteinPerCalorie&order=desc}
+ */
+@Data
+public class NutrientQueryRequest {
+    private Double minCalories;
+    private Double maxCalories;
+    private Double minCarbs;
+    private Double maxCarbs;
+    private Double minProtein;
+    private Double maxProtein;
+    private Double minFats;
+    private Double maxFats;
+    private Double minFiber;
+    private Double maxFiber;
+
+    private String sort;   // calories, carbs, protein, fats, fiber, proteinPerCalorie, fiberPerCalorie
+    private String order;  // asc (default) or desc
+    private Integer limit; // default 20, max 100
+}
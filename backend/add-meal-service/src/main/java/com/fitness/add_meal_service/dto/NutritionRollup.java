@@ -0,0 +1,17 @@
+package com.fitness.add_meal_service.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/** A user's summed calories and macros over one week or month. */
+@Data
+public class NutritionRollup {
+    private LocalDate periodStart;
+    private int daysLogged;
+    private double calories;
+    private double protein;
+    private double carbs;
+    private double fat;
+    private double fiber;
+}
@@ -0,0 +1,14 @@
+package com.fitness.add_meal_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+/** Weekly (weeks start on Monday) and monthly rollups overlapping the requested range. */
+@Data
+@AllArgsConstructor
+public class NutritionRollupsResponse {
+    private List<NutritionRollup> weeks;
+    private List<NutritionRollup> months;
+}
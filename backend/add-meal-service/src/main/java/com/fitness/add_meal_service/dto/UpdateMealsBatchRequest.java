@@ -0,0 +1,15 @@
+package com.fitness.add_meal_service.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * Several update-meals writes for one user: { userId, days: [ {mealDate, meals} | {mealDate, mealType, items, totalCalories}, ... ] }.
+ * Entries are applied in order, so later writes to a day win; their own userId is ignored.
+ */
+@Data
+public class UpdateMealsBatchRequest {
+    private Long userId;
+    private List<UpdateMealsRequest> days;
+}
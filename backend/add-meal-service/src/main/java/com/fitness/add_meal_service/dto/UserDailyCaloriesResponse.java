@@ -0,0 +1,18 @@
+package com.fitness.add_meal_service.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/** Calories-only projection of a user's day, for charts that do not need the slot items. */
+@Data
+public class UserDailyCaloriesResponse {
+    private LocalDate mealDate;
+    private Double breakfastCalories;
+    private Double postBreakfastCalories;
+    private Double lunchCalories;
+    private Double postLunchCalories;
+    private Double preWorkoutCalories;
+    private Double dinnerCalories;
+    private Double totalCalories;
+}
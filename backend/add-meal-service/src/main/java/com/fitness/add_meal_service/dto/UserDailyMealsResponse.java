@@ -1,21 +1,33 @@
 package com.fitness.add_meal_service.dto;
 
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import com.fitness.add_meal_service.model.MacroTotals;
+
 import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.util.Map;
 
+/**
+ * Slot fields hold the stored JSON column text and are written into the response as-is, so a
+ * read never builds an object tree for the slots. They must be valid JSON or null.
+ */
 public class UserDailyMealsResponse {
 
     private Long id;
     private Long userId;
     private LocalDate mealDate;
 
-    private Map<String, Object> breakfast;
-    private Map<String, Object> postBreakfast;
-    private Map<String, Object> lunch;
-    private Map<String, Object> postLunch;
-    private Map<String, Object> preWorkout;
-    private Map<String, Object> dinner;
+    @JsonRawValue
+    private String breakfast;
+    @JsonRawValue
+    private String postBreakfast;
+    @JsonRawValue
+    private String lunch;
+    @JsonRawValue
+    private String postLunch;
+    @JsonRawValue
+    private String preWorkout;
+    @JsonRawValue
+    private String dinner;
 
     private Double breakfastCalories;
     private Double postBreakfastCalories;
@@ -25,6 +37,15 @@ public class UserDailyMealsResponse {
     private Double dinnerCalories;
     private Double totalCalories;
 
+    private MacroTotals breakfastMacros;
+    private MacroTotals postBreakfastMacros;
+    private MacroTotals lunchMacros;
+    private MacroTotals postLunchMacros;
+    private MacroTotals preWorkoutMacros;
+    private MacroTotals dinnerMacros;
+    private MacroTotals totalMacros;
+
+    private Long version;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
 
@@ -52,51 +73,51 @@ public class UserDailyMealsResponse {
         this.mealDate = mealDate;
     }
 
-    public Map<String, Object> getBreakfast() {
+    public String getBreakfast() {
         return breakfast;
     }
 
-    public void setBreakfast(Map<String, Object> breakfast) {
+    public void setBreakfast(String breakfast) {
         this.breakfast = breakfast;
     }
 
-    public Map<String, Object> getPostBreakfast() {
+    public String getPostBreakfast() {
         return postBreakfast;
     }
 
-    public void setPostBreakfast(Map<String, Object> postBreakfast) {
+    public void setPostBreakfast(String postBreakfast) {
         this.postBreakfast = postBreakfast;
     }
 
-    public Map<String, Object> getLunch() {
+    public String getLunch() {
         return lunch;
     }
 
-    public void setLunch(Map<String, Object> lunch) {
+    public void setLunch(String lunch) {
         this.lunch = lunch;
     }
 
-    public Map<String, Object> getPostLunch() {
+    public String getPostLunch() {
         return postLunch;
     }
 
-    public void setPostLunch(Map<String, Object> postLunch) {
+    public void setPostLunch(String postLunch) {
         this.postLunch = postLunch;
     }
 
-    public Map<String, Object> getPreWorkout() {
+    public String getPreWorkout() {
         return preWorkout;
     }
 
-    public void setPreWorkout(Map<String, Object> preWorkout) {
+    public void setPreWorkout(String preWorkout) {
         this.preWorkout = preWorkout;
     }
 
-    public Map<String, Object> getDinner() {
+    public String getDinner() {
         return dinner;
     }
 
-    public void setDinner(Map<String, Object> dinner) {
+    public void setDinner(String dinner) {
         this.dinner = dinner;
     }
 
@@ -156,6 +177,70 @@ public class UserDailyMealsResponse {
         this.totalCalories = totalCalories;
     }
 
+    public MacroTotals getBreakfastMacros() {
+        return breakfastMacros;
+    }
+
+    public void setBreakfastMacros(MacroTotals breakfastMacros) {
+        this.breakfastMacros = breakfastMacros;
+    }
+
+    public MacroTotals getPostBreakfastMacros() {
+        return postBreakfastMacros;
+    }
+
+    public void setPostBreakfastMacros(MacroTotals postBreakfastMacros) {
+        this.postBreakfastMacros = postBreakfastMacros;
+    }
+
+    public MacroTotals getLunchMacros() {
+        return lunchMacros;
+    }
+
+    public void setLunchMacros(MacroTotals lunchMacros) {
+        this.lunchMacros = lunchMacros;
+    }
+
+    public MacroTotals getPostLunchMacros() {
+        return postLunchMacros;
+    }
+
+    public void setPostLunchMacros(MacroTotals postLunchMacros) {
+        this.postLunchMacros = postLunchMacros;
+    }
+
+    public MacroTotals getPreWorkoutMacros() {
+        return preWorkoutMacros;
+    }
+
+    public void setPreWorkoutMacros(MacroTotals preWorkoutMacros) {
+        this.preWorkoutMacros = preWorkoutMacros;
+    }
+
+    public MacroTotals getDinnerMacros() {
+        return dinnerMacros;
+    }
+
+    public void setDinnerMacros(MacroTotals dinnerMacros) {
+        this.dinnerMacros = dinnerMacros;
+    }
+
+    public MacroTotals getTotalMacros() {
+        return totalMacros;
+    }
+
+    public void setTotalMacros(MacroTotals totalMacros) {
+        this.totalMacros = totalMacros;
+    }
+
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
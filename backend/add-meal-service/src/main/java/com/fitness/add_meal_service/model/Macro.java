@@ -0,0 +1,30 @@
+package com.fitness.add_meal_service.model;
+
+/**
+ * The macros totalled per slot and per day, with the key items use for them under {@code macros}
+ * and the columns that hold the totals.
+ */
+public enum Macro {
+    PROTEIN("protein"),
+    CARBS("carbs"),
+    FAT("fat"),
+    FIBER("fiber");
+
+    private final String key;
+
+    Macro(String key) {
+        this.key = key;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public String column(MealSlot slot) {
+        return slot.column() + "_" + key;
+    }
+
+    public String totalColumn() {
+        return "total_" + key;
+    }
+}
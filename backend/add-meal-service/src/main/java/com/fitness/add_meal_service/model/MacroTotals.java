@@ -0,0 +1,58 @@
+package com.fitness.add_meal_service.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/** Grams of protein, carbs, fat and fiber summed over a slot's or a day's items. */
+@Getter
+@Setter
+@NoArgsConstructor
+@Embeddable
+public class MacroTotals {
+    @Column(name = "protein")
+    private double protein;
+
+    @Column(name = "carbs")
+    private double carbs;
+
+    @Column(name = "fat")
+    private double fat;
+
+    @Column(name = "fiber")
+    private double fiber;
+
+    public double get(Macro macro) {
+        return switch (macro) {
+            case PROTEIN -> protein;
+            case CARBS -> carbs;
+            case FAT -> fat;
+            case FIBER -> fiber;
+        };
+    }
+
+    /** Adds {@code grams} of the macro; null counts as zero. */
+    public void add(Macro macro, Double grams) {
+        if (grams == null) return;
+        switch (macro) {
+            case PROTEIN -> protein += grams;
+            case CARBS -> carbs += grams;
+            case FAT -> fat += grams;
+            case FIBER -> fiber += grams;
+        }
+    }
+
+    /** Adds every macro of {@code other}; null counts as zero. */
+    public void add(MacroTotals other) {
+        if (other == null) return;
+        for (Macro macro : Macro.values()) add(macro, other.get(macro));
+    }
+
+    public MacroTotals copy() {
+        MacroTotals copy = new MacroTotals();
+        copy.add(this);
+        return copy;
+    }
+}
@@ -0,0 +1,124 @@
+package com.fitness.add_meal_service.model;
+
+/**
+ * The six meal slots of a {@link UserDailyMeals} row, with the JSON key clients use and the
+ * columns that hold the slot's items, calories and macros.
+ */
+public enum MealSlot {
+    BREAKFAST("breakfast", "breakfast"),
+    POST_BREAKFAST("postBreakfast", "post_breakfast"),
+    LUNCH("lunch", "lunch"),
+    POST_LUNCH("postLunch", "post_lunch"),
+    PRE_WORKOUT("preWorkout", "pre_workout"),
+    DINNER("dinner", "dinner");
+
+    private final String jsonKey;
+    private final String column;
+
+    MealSlot(String jsonKey, String column) {
+        this.jsonKey = jsonKey;
+        this.column = column;
+    }
+
+    public String jsonKey() {
+        return jsonKey;
+    }
+
+    public String column() {
+        return column;
+    }
+
+    public String caloriesColumn() {
+        return column + "_calories";
+    }
+
+    public String json(UserDailyMeals row) {
+        return switch (this) {
+            case BREAKFAST -> row.getBreakfast();
+            case POST_BREAKFAST -> row.getPostBreakfast();
+            case LUNCH -> row.getLunch();
+            case POST_LUNCH -> row.getPostLunch();
+            case PRE_WORKOUT -> row.getPreWorkout();
+            case DINNER -> row.getDinner();
+        };
+    }
+
+    public Double calories(UserDailyMeals row) {
+        return switch (this) {
+            case BREAKFAST -> row.getBreakfastCalories();
+            case POST_BREAKFAST -> row.getPostBreakfastCalories();
+            case LUNCH -> row.getLunchCalories();
+            case POST_LUNCH -> row.getPostLunchCalories();
+            case PRE_WORKOUT -> row.getPreWorkoutCalories();
+            case DINNER -> row.getDinnerCalories();
+        };
+    }
+
+    public void set(UserDailyMeals row, String json, Double calories) {
+        switch (this) {
+            case BREAKFAST -> {
+                row.setBreakfast(json);
+                row.setBreakfastCalories(calories);
+            }
+            case POST_BREAKFAST -> {
+                row.setPostBreakfast(json);
+                row.setPostBreakfastCalories(calories);
+            }
+            case LUNCH -> {
+                row.setLunch(json);
+                row.setLunchCalories(calories);
+            }
+            case POST_LUNCH -> {
+                row.setPostLunch(json);
+                row.setPostLunchCalories(calories);
+            }
+            case PRE_WORKOUT -> {
+                row.setPreWorkout(json);
+                row.setPreWorkoutCalories(calories);
+            }
+            case DINNER -> {
+                row.setDinner(json);
+                row.setDinnerCalories(calories);
+            }
+        }
+    }
+
+    public MacroTotals macros(UserDailyMeals row) {
+        return switch (this) {
+            case BREAKFAST -> row.getBreakfastMacros();
+            case POST_BREAKFAST -> row.getPostBreakfastMacros();
+            case LUNCH -> row.getLunchMacros();
+            case POST_LUNCH -> row.getPostLunchMacros();
+            case PRE_WORKOUT -> row.getPreWorkoutMacros();
+            case DINNER -> row.getDinnerMacros();
+        };
+    }
+
+    public void setMacros(UserDailyMeals row, MacroTotals macros) {
+        switch (this) {
+            case BREAKFAST -> row.setBreakfastMacros(macros);
+            case POST_BREAKFAST -> row.setPostBreakfastMacros(macros);
+            case LUNCH -> row.setLunchMacros(macros);
+            case POST_LUNCH -> row.setPostLunchMacros(macros);
+            case PRE_WORKOUT -> row.setPreWorkoutMacros(macros);
+            case DINNER -> row.setDinnerMacros(macros);
+        }
+    }
+
+    public static MealSlot from(String raw) {
+        if (raw == null) return null;
+        String s = raw.trim();
+        if (s.isEmpty()) return null;
+
+        // accept both camelCase and snake_case from clients
+        return switch (s) {
+            case "breakfast" -> BREAKFAST;
+            case "postBreakfast", "post_breakfast" -> POST_BREAKFAST;
+            case "lunch" -> LUNCH;
+            case "postLunch", "post_lunch" -> POST_LUNCH;
+            case "preWorkout", "pre_workout" -> PRE_WORKOUT;
+            case "dinner" -> DINNER;
+            default -> null;
+        };
+    }
+}
@@ -10,7 +10,11 @@ import java.time.LocalDateTime;
 @Getter
 @Setter
 @Entity
-@Table(name = "user_daily_meals")
+@Table(
+        name = "user_daily_meals",
+        uniqueConstraints = @UniqueConstraint(name = "uk_user_daily_meals_user_date", columnNames = {"user_id", "meal_date"}),
+        indexes = @Index(name = "idx_user_daily_meals_user_change", columnList = "user_id, change_seq")
+)
 public class UserDailyMeals {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -61,6 +65,64 @@ public class UserDailyMeals {
     @Column(name = "total_calories")
     private Double totalCalories = 0d;
 
+    // computed from the items' macros on write
+    @Embedded
+    @AttributeOverride(name = "protein", column = @Column(name = "breakfast_protein"))
+    @AttributeOverride(name = "carbs", column = @Column(name = "breakfast_carbs"))
+    @AttributeOverride(name = "fat", column = @Column(name = "breakfast_fat"))
+    @AttributeOverride(name = "fiber", column = @Column(name = "breakfast_fiber"))
+    private MacroTotals breakfastMacros = new MacroTotals();
+
+    @Embedded
+    @AttributeOverride(name = "protein", column = @Column(name = "post_breakfast_protein"))
+    @AttributeOverride(name = "carbs", column = @Column(name = "post_breakfast_carbs"))
+    @AttributeOverride(name = "fat", column = @Column(name = "post_breakfast_fat"))
+    @AttributeOverride(name = "fiber", column = @Column(name = "post_breakfast_fiber"))
+    private MacroTotals postBreakfastMacros = new MacroTotals();
+
+    @Embedded
+    @AttributeOverride(name = "protein", column = @Column(name = "lunch_protein"))
+    @AttributeOverride(name = "carbs", column = @Column(name = "lunch_carbs"))
+    @AttributeOverride(name = "fat", column = @Column(name = "lunch_fat"))
+    @AttributeOverride(name = "fiber", column = @Column(name = "lunch_fiber"))
+    private MacroTotals lunchMacros = new MacroTotals();
+
+    @Embedded
+    @AttributeOverride(name = "protein", column = @Column(name = "post_lunch_protein"))
+    @AttributeOverride(name = "carbs", column = @Column(name = "post_lunch_carbs"))
+    @AttributeOverride(name = "fat", column = @Column(name = "post_lunch_fat"))
+    @AttributeOverride(name = "fiber", column = @Column(name = "post_lunch_fiber"))
+    private MacroTotals postLunchMacros = new MacroTotals();
+
+    @Embedded
+    @AttributeOverride(name = "protein", column = @Column(name = "pre_workout_protein"))
+    @AttributeOverride(name = "carbs", column = @Column(name = "pre_workout_carbs"))
+    @AttributeOverride(name = "fat", column = @Column(name = "pre_workout_fat"))
+    @AttributeOverride(name = "fiber", column = @Column(name = "pre_workout_fiber"))
+    private MacroTotals preWorkoutMacros = new MacroTotals();
+
+    @Embedded
+    @AttributeOverride(name = "protein", column = @Column(name = "dinner_protein"))
+    @AttributeOverride(name = "carbs", column = @Column(name = "dinner_carbs"))
+    @AttributeOverride(name = "fat", column = @Column(name = "dinner_fat"))
+    @AttributeOverride(name = "fiber", column = @Column(name = "dinner_fiber"))
+    private MacroTotals dinnerMacros = new MacroTotals();
+
+    @Embedded
+    @AttributeOverride(name = "protein", column = @Column(name = "total_protein"))
+    @AttributeOverride(name = "carbs", column = @Column(name = "total_carbs"))
+    @AttributeOverride(name = "fat", column = @Column(name = "total_fat"))
+    @AttributeOverride(name = "fiber", column = @Column(name = "total_fiber"))
+    private MacroTotals totalMacros = new MacroTotals();
+
+    // bumped by every write; the ETag of GET /date
+    @Column(name = "version", nullable = false)
+    private Long version = 0L;
+
+    // the user's change sequence at this day's last write; the cursor of GET /changes
+    @Column(name = "change_seq", nullable = false)
+    private Long changeSeq = 0L;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
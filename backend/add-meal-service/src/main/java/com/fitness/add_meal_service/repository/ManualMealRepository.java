@@ -2,6 +2,7 @@ package com.fitness.add_meal_service.repository;
 
 import com.fitness.add_meal_service.model.ManualMeal;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.List;
 import java.util.Optional;
@@ -11,5 +12,11 @@ public interface ManualMealRepository extends JpaRepository<ManualMeal, Long> {
     Optional<ManualMeal> findByMealNameIgnoreCase(String mealName);
 
     List<ManualMeal> findTop10ByMealNameContainingIgnoreCaseOrderByMealNameAsc(String keyword);
+
+    // keyset pages over the whole catalog, used to warm the in-memory search index
+    List<ManualMeal> findTop1000ByIdGreaterThanOrderByIdAsc(Long id);
+
+    @Query("select coalesce(max(m.id), 0) from ManualMeal m")
+    long findMaxId();
 }
 
@@ -0,0 +1,256 @@
+package com.fitness.add_meal_service.repository;
+
+import com.fitness.add_meal_service.dto.NutritionRollup;
+import com.fitness.add_meal_service.model.MacroTotals;
+import com.fitness.add_meal_service.model.MealSlot;
+import com.fitness.add_meal_service.model.UserDailyMeals;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+/**
+ * user_weekly_nutrition and user_monthly_nutrition: per-user totals of calories and macros, one row
+ * per ISO week or calendar month. Rows are adjusted by deltas as days change, and rebuilt from
+ * user_daily_meals on demand.
+ */
+@Repository
+public class NutritionRollupRepository {
+
+    public enum Period {
+        WEEK("user_weekly_nutrition", "week_start", "DATE_SUB(meal_date, INTERVAL WEEKDAY(meal_date) DAY)"),
+        MONTH("user_monthly_nutrition", "month_start", "DATE_SUB(meal_date, INTERVAL DAYOFMONTH(meal_date) - 1 DAY)");
+
+        private final String table;
+        private final String startColumn;
+        private final String startOfMealDate;
+
+        Period(String table, String startColumn, String startOfMealDate) {
+            this.table = table;
+            this.startColumn = startColumn;
+            this.startOfMealDate = startOfMealDate;
+        }
+
+        public LocalDate start(LocalDate date) {
+            return this == WEEK ? date.with(DayOfWeek.MONDAY) : date.withDayOfMonth(1);
+        }
+    }
+
+    /** Calories and macros of one day; a day with calories counts as logged. */
+    public record DayTotals(double calories, double protein, double carbs, double fat, double fiber) {
+        public static final DayTotals ZERO = new DayTotals(0, 0, 0, 0, 0);
+
+        /** The day's own totals; missing calories or macros count as zero. */
+        public static DayTotals of(UserDailyMeals day) {
+            return of(day.getTotalCalories() == null ? 0d : day.getTotalCalories(), day.getTotalMacros());
+        }
+
+        /**
+         * The totals {@code stored} has once {@code slots} take their calories and macros from
+         * {@code written}, summed over the slots the way the slot upsert recomputes them.
+         */
+        public static DayTotals withSlots(UserDailyMeals stored, UserDailyMeals written, Set<MealSlot> slots) {
+            double calories = 0d;
+            MacroTotals macros = new MacroTotals();
+            for (MealSlot slot : MealSlot.values()) {
+                UserDailyMeals from = slots.contains(slot) ? written : stored;
+                Double slotCalories = slot.calories(from);
+                if (slotCalories != null) calories += slotCalories;
+                macros.add(slot.macros(from));
+            }
+            return of(calories, macros);
+        }
+
+        private static DayTotals of(double calories, MacroTotals macros) {
+            if (macros == null) return new DayTotals(calories, 0, 0, 0, 0);
+            return new DayTotals(calories, macros.getProtein(), macros.getCarbs(), macros.getFat(), macros.getFiber());
+        }
+
+        public boolean logged() {
+            return calories > 0;
+        }
+    }
+
+    private static final String DAY_TOTALS_SELECT = "SELECT user_id, meal_date, "
+            + "COALESCE(total_calories, 0) AS calories, total_protein AS protein, total_carbs AS carbs, "
+            + "total_fat AS fat, total_fiber AS fiber FROM user_daily_meals ";
+
+    private static final String DAY_TOTALS_SQL = DAY_TOTALS_SELECT + "WHERE user_id = ? AND meal_date = ?";
+
+    private static final String DAYS_TOTALS_SQL_PREFIX = DAY_TOTALS_SELECT + "WHERE user_id = ? AND meal_date IN (";
+
+    // moves the week and the month together when both rows exist; matches nothing otherwise
+    private static final String WEEK_AND_MONTH_DELTA_SQL = "UPDATE user_weekly_nutrition w "
+            + "JOIN user_monthly_nutrition m ON m.user_id = w.user_id AND m.month_start = ? "
+            + "SET " + deltaAssignments("w") + ", " + deltaAssignments("m") + " "
+            + "WHERE w.user_id = ? AND w.week_start = ?";
+
+    private static final String LOCK_USER_DAYS_SQL = "SELECT id FROM user_daily_meals WHERE user_id = ? FOR UPDATE";
+
+    private static final String USER_IDS_SQL = "SELECT DISTINCT user_id FROM user_daily_meals "
+            + "WHERE user_id > ? ORDER BY user_id LIMIT ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NutritionRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /** The stored day's totals, or {@link DayTotals#ZERO} if the day has no row. */
+    public DayTotals findDayTotals(Long userId, LocalDate mealDate) {
+        List<DayTotals> rows = jdbcTemplate.query(DAY_TOTALS_SQL,
+                (rs, n) -> new DayTotals(rs.getDouble("calories"), rs.getDouble("protein"),
+                        rs.getDouble("carbs"), rs.getDouble("fat"), rs.getDouble("fiber")),
+                userId, mealDate);
+        return rows.isEmpty() ? DayTotals.ZERO : rows.get(0);
+    }
+
+    /** The stored totals of each of {@code mealDates}, in one query; days without a row are {@link DayTotals#ZERO}. */
+    public Map<LocalDate, DayTotals> findDayTotals(Long userId, Collection<LocalDate> mealDates) {
+        Map<LocalDate, DayTotals> totals = new HashMap<>();
+        for (LocalDate mealDate : mealDates) totals.put(mealDate, DayTotals.ZERO);
+        if (mealDates.isEmpty()) return totals;
+
+        StringJoiner in = new StringJoiner(", ", DAYS_TOTALS_SQL_PREFIX, ")");
+        List<Object> args = new ArrayList<>();
+        args.add(userId);
+        for (LocalDate mealDate : mealDates) {
+            in.add("?");
+            args.add(mealDate);
+        }
+        jdbcTemplate.query(in.toString(), (RowCallbackHandler) rs -> totals.put(rs.getObject("meal_date", LocalDate.class),
+                new DayTotals(rs.getDouble("calories"), rs.getDouble("protein"),
+                        rs.getDouble("carbs"), rs.getDouble("fat"), rs.getDouble("fiber"))), args.toArray());
+        return totals;
+    }
+
+    /**
+     * Moves the week and month containing {@code mealDate} from the day's old totals to its new
+     * ones: one statement once both rows exist, an upsert per period the first time either is
+     * written.
+     */
+    public void applyDelta(Long userId, LocalDate mealDate, DayTotals before, DayTotals after) {
+        int days = (after.logged() ? 1 : 0) - (before.logged() ? 1 : 0);
+        if (days == 0 && before.equals(after)) return;
+
+        LocalDateTime now = LocalDateTime.now();
+        Object[] delta = {days, after.calories() - before.calories(), after.protein() - before.protein(),
+                after.carbs() - before.carbs(), after.fat() - before.fat(), after.fiber() - before.fiber(), now};
+        List<Object> args = new ArrayList<>();
+        args.add(Period.MONTH.start(mealDate));
+        args.addAll(List.of(delta));
+        args.addAll(List.of(delta));
+        args.add(userId);
+        args.add(Period.WEEK.start(mealDate));
+        // Connector/J counts matched rather than changed rows, so 0 means the week or the month has
+        // no row yet and the join applied nothing; the upserts below then create what is missing
+        if (jdbcTemplate.update(WEEK_AND_MONTH_DELTA_SQL, args.toArray()) > 0) return;
+        for (Period period : Period.values()) {
+            jdbcTemplate.update(deltaSql(period), userId, period.start(mealDate), days,
+                    after.calories() - before.calories(), after.protein() - before.protein(),
+                    after.carbs() - before.carbs(), after.fat() - before.fat(), after.fiber() - before.fiber(),
+                    now);
+        }
+    }
+
+    /**
+     * {@link #applyDelta} for several days: their changes are summed per week and month and applied
+     * as one batch per period.
+     */
+    public void applyDeltas(Long userId, Map<LocalDate, DayTotals> before, Map<LocalDate, DayTotals> after) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Period period : Period.values()) {
+            // days_logged, calories, protein, carbs, fat, fiber per period start
+            Map<LocalDate, double[]> deltas = new TreeMap<>();
+            for (Map.Entry<LocalDate, DayTotals> day : after.entrySet()) {
+                DayTotals from = before.getOrDefault(day.getKey(), DayTotals.ZERO);
+                DayTotals to = day.getValue();
+                if (from.equals(to)) continue;
+                double[] d = deltas.computeIfAbsent(period.start(day.getKey()), start -> new double[6]);
+                d[0] += (to.logged() ? 1 : 0) - (from.logged() ? 1 : 0);
+                d[1] += to.calories() - from.calories();
+                d[2] += to.protein() - from.protein();
+                d[3] += to.carbs() - from.carbs();
+                d[4] += to.fat() - from.fat();
+                d[5] += to.fiber() - from.fiber();
+            }
+            if (deltas.isEmpty()) continue;
+
+            List<Object[]> batch = new ArrayList<>();
+            deltas.forEach((start, d) -> batch.add(new Object[]{userId, start, (int) d[0], d[1], d[2], d[3], d[4], d[5], now}));
+            jdbcTemplate.batchUpdate(deltaSql(period), batch);
+        }
+    }
+
+    /** The user's rows of {@code period} starting within {@code [from, to]}, oldest first. */
+    public List<NutritionRollup> find(Period period, Long userId, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("SELECT " + period.startColumn
+                        + ", days_logged, calories, protein, carbs, fat, fiber FROM " + period.table
+                        + " WHERE user_id = ? AND " + period.startColumn + " BETWEEN ? AND ? ORDER BY " + period.startColumn,
+                (rs, n) -> {
+                    NutritionRollup rollup = new NutritionRollup();
+                    rollup.setPeriodStart(rs.getObject(1, LocalDate.class));
+                    rollup.setDaysLogged(rs.getInt(2));
+                    rollup.setCalories(rs.getDouble(3));
+                    rollup.setProtein(rs.getDouble(4));
+                    rollup.setCarbs(rs.getDouble(5));
+                    rollup.setFat(rs.getDouble(6));
+                    rollup.setFiber(rs.getDouble(7));
+                    return rollup;
+                },
+                userId, from, to);
+    }
+
+    /**
+     * Recomputes all of the user's rollup rows from their days. Must run in a transaction: the
+     * user's days (and the gaps between them) stay locked until it commits, so no day write can
+     * slip in between the recompute and the commit.
+     */
+    public void rebuildUser(Long userId) {
+        jdbcTemplate.query(LOCK_USER_DAYS_SQL, rs -> { }, userId);
+        LocalDateTime now = LocalDateTime.now();
+        for (Period period : Period.values()) {
+            jdbcTemplate.update("DELETE FROM " + period.table + " WHERE user_id = ?", userId);
+            jdbcTemplate.update("INSERT INTO " + period.table + " (user_id, " + period.startColumn
+                            + ", days_logged, calories, protein, carbs, fat, fiber, updated_at) "
+                            + "SELECT user_id, " + period.startOfMealDate
+                            + ", SUM(calories > 0), SUM(calories), SUM(protein), SUM(carbs), SUM(fat), SUM(fiber), ? "
+                            + "FROM (" + DAY_TOTALS_SELECT + "WHERE user_id = ?) days "
+                            + "GROUP BY user_id, " + period.startOfMealDate,
+                    now, userId);
+        }
+    }
+
+    /** Up to {@code limit} ids of users with stored days, above {@code afterUserId}, ascending. */
+    public List<Long> findUserIdsAfter(long afterUserId, int limit) {
+        return jdbcTemplate.queryForList(USER_IDS_SQL, Long.class, afterUserId, limit);
+    }
+
+    private static String deltaAssignments(String alias) {
+        StringJoiner set = new StringJoiner(", ");
+        for (String column : List.of("days_logged", "calories", "protein", "carbs", "fat", "fiber")) {
+            set.add(alias + "." + column + " = " + alias + "." + column + " + ?");
+        }
+        return set.add(alias + ".updated_at = ?").toString();
+    }
+
+    private static String deltaSql(Period period) {
+        return "INSERT INTO " + period.table + " (user_id, " + period.startColumn
+                + ", days_logged, calories, protein, carbs, fat, fiber, updated_at) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE "
+                + "days_logged = days_logged + VALUES(days_logged), calories = calories + VALUES(calories), "
+                + "protein = protein + VALUES(protein), carbs = carbs + VALUES(carbs), "
+                + "fat = fat + VALUES(fat), fiber = fiber + VALUES(fiber), updated_at = VALUES(updated_at)";
+    }
+}
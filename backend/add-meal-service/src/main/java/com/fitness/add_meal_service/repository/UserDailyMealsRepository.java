@@ -6,8 +6,6 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import java.time.LocalDate;
 import java.util.Optional;
 
-public interface UserDailyMealsRepository extends JpaRepository<UserDailyMeals, Long> {
+public interface UserDailyMealsRepository extends JpaRepository<UserDailyMeals, Long>, UserDailyMealsRepositoryCustom {
     Optional<UserDailyMeals> findByUserIdAndMealDate(Long userId, LocalDate mealDate);
 }
-
-
@@ -0,0 +1,106 @@
+package com.fitness.add_meal_service.repository;
+
+import com.fitness.add_meal_service.dto.MealDayVersion;
+import com.fitness.add_meal_service.dto.MealSlotTotals;
+import com.fitness.add_meal_service.model.MacroTotals;
+import com.fitness.add_meal_service.model.MealSlot;
+import com.fitness.add_meal_service.model.UserDailyMeals;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Single-statement writes for user_daily_meals. Both rely on the (user_id, meal_date) unique key:
+ * the first write of a day inserts the row, every later one updates it, and concurrent first
+ * writes cannot create a second row.
+ */
+public interface UserDailyMealsRepositoryCustom {
+
+    /**
+     * Locks the user's day for the rest of the transaction, first inserting it empty (no slots, zero
+     * calories) if it does not exist yet.
+     */
+    void lockDay(Long userId, LocalDate mealDate);
+
+    /** {@link #lockDay} for several days in one batch, locked in date order. */
+    void lockDays(Long userId, Collection<LocalDate> mealDates);
+
+    /**
+     * The day's calories, macros and version as an unmanaged entity without slot JSON, read with
+     * FOR UPDATE so it is the latest committed row. Meant for a day already locked by
+     * {@link #lockDay}: taking the lock with this read alone would gap-lock a missing day, and
+     * concurrent first writes of the day would deadlock on the insert.
+     */
+    Optional<UserDailyMeals> findForUpdate(Long userId, LocalDate mealDate);
+
+    /**
+     * Takes the user's next {@code count} change sequence numbers for the day write that follows in
+     * this transaction. Every write below stamps its day from LAST_INSERT_ID(), which this leaves at
+     * the last number taken; a write to several days numbers them in date order. Call it after the
+     * days are locked, right before the write, since inserting a new row moves LAST_INSERT_ID().
+     * The user's counter stays locked until the transaction ends, so the user's writes commit in
+     * sequence order.
+     */
+    void takeChangeSeq(Long userId, int count);
+
+    /**
+     * Writes the given slots' JSON, calories and macros from {@code row} (unmanaged; other slots
+     * are left as stored) and recomputes the day totals from the stored slots.
+     */
+    void upsertSlots(UserDailyMeals row, Set<MealSlot> slots);
+
+    /** Writes every slot, total and timestamp of the given (unmanaged) row over the stored day. */
+    void upsertDay(UserDailyMeals row);
+
+    /** {@link #upsertDay} for several rows in one JDBC batch. */
+    void upsertDays(Collection<UserDailyMeals> rows);
+
+    /**
+     * Appends one item to the slot's {@code items} array and adds its calories and macros to the
+     * slot and day totals, creating the day or the slot if needed.
+     */
+    void appendItem(Long userId, LocalDate mealDate, MealSlot slot, String itemJson, double calories, MacroTotals macros);
+
+    /**
+     * Replaces the item at {@code index}, adjusting the calories and macros by the difference.
+     *
+     * @return false if the slot has no item at that index
+     */
+    boolean replaceItem(Long userId, LocalDate mealDate, MealSlot slot, int index, String itemJson, double calories, MacroTotals macros);
+
+    /**
+     * Removes the item at {@code index} and subtracts its calories and macros.
+     *
+     * @return false if the slot has no item at that index
+     */
+    boolean removeItem(Long userId, LocalDate mealDate, MealSlot slot, int index);
+
+    /**
+     * Copies {@code slots} of the source day onto every target day in one INSERT ... SELECT,
+     * creating target days as needed and recomputing their totals. Slots the source day has no
+     * JSON for are left as they are. Returns the affected row count: 0 if there is no source day.
+     */
+    int copyDay(Long userId, LocalDate sourceDate, Collection<LocalDate> targetDates, Set<MealSlot> slots);
+
+    Optional<MealSlotTotals> findSlotTotals(Long userId, LocalDate mealDate, MealSlot slot);
+
+    /** The day's id, version and last update, without reading any slot. */
+    Optional<MealDayVersion> findVersion(Long userId, LocalDate mealDate);
+
+    /** The user's stored days among {@code mealDates}, in one query, as unmanaged entities in date order. */
+    List<UserDailyMeals> findDays(Long userId, Collection<LocalDate> mealDates);
+
+    /** Up to {@code limit} of the user's days stamped after {@code sinceSeq}, in sequence order. */
+    List<UserDailyMeals> findChangedSince(Long userId, long sinceSeq, int limit);
+
+    /**
+     * Streams the user's days in {@code [from, to]} in date order through a server-side cursor, so
+     * only one fetch of rows is in memory at a time. Each row is handed over as a fresh unmanaged
+     * entity; without {@code withSlots} the slot JSON columns are not read and stay null.
+     */
+    void streamRange(Long userId, LocalDate from, LocalDate to, boolean withSlots, Consumer<UserDailyMeals> action);
+}
@@ -0,0 +1,547 @@
+package com.fitness.add_meal_service.repository;
+
+import com.fitness.add_meal_service.dto.MealDayVersion;
+import com.fitness.add_meal_service.dto.MealSlotTotals;
+import com.fitness.add_meal_service.model.Macro;
+import com.fitness.add_meal_service.model.MacroTotals;
+import com.fitness.add_meal_service.model.MealSlot;
+import com.fitness.add_meal_service.model.UserDailyMeals;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Single-statement implementations of {@link UserDailyMealsRepositoryCustom}. MySQL applies
+ * assignments left to right in both {@code ON DUPLICATE KEY UPDATE} and {@code UPDATE}, so the
+ * day totals (and the slot JSON's own totalCalories) are computed after the slot's calories and
+ * macro columns have taken their new values, and those are adjusted before the slot JSON changes.
+ *
+ * Every write bumps the row's version, which GET /date serves as the day's ETag, and stamps the
+ * row with the user's change sequence, the cursor of GET /changes: {@link #takeChangeSeq} leaves
+ * the number in LAST_INSERT_ID(), which the write statement reads, so stamping costs no statement
+ * of its own.
+ *
+ * Item edits change the slot JSON in place with JSON_ARRAY_APPEND, JSON_SET and JSON_REMOVE
+ * rather than rewriting it, so InnoDB can apply JSON_SET/JSON_REMOVE as partial updates and
+ * the statement carries only the changed item.
+ */
+public class UserDailyMealsRepositoryImpl implements UserDailyMealsRepositoryCustom {
+
+    // rows per round trip of the range cursor (needs useCursorFetch=true on the JDBC URL)
+    private static final int RANGE_FETCH_SIZE = 64;
+
+    private static final String TOTAL_FROM_SLOTS;
+    // "total_calories = ..., total_protein = ..., ..." recomputed from the stored slots
+    private static final String DAY_TOTALS_FROM_SLOTS;
+    private static final String UPSERT_DAY_SQL;
+    private static final String LOCK_DAY_SQL;
+    private static final String FOR_UPDATE_SQL;
+    private static final Map<MealSlot, String> APPEND_ITEM_SQL = new EnumMap<>(MealSlot.class);
+    private static final Map<MealSlot, String> REPLACE_ITEM_SQL = new EnumMap<>(MealSlot.class);
+    private static final Map<MealSlot, String> REMOVE_ITEM_SQL = new EnumMap<>(MealSlot.class);
+    private static final Map<MealSlot, String> SLOT_TOTALS_SQL = new EnumMap<>(MealSlot.class);
+    private static final String RANGE_SQL;
+    private static final String RANGE_CALORIES_SQL;
+    private static final String CHANGES_SQL;
+    // "SELECT <every column> FROM user_daily_meals WHERE user_id = ? AND meal_date IN (" + one ? per day
+    private static final String DAYS_IN_SQL_PREFIX;
+    // takes the next {@code n} numbers of the user's change sequence and leaves the last in LAST_INSERT_ID()
+    private static final String NEXT_CHANGE_SEQ_SQL = "INSERT INTO user_meal_change_seq (user_id, last_seq) VALUES (?, LAST_INSERT_ID(?)) "
+            + "ON DUPLICATE KEY UPDATE last_seq = LAST_INSERT_ID(last_seq + VALUES(last_seq))";
+    private static final String VERSION_SQL = "SELECT id, version, updated_at FROM user_daily_meals WHERE user_id = ? AND meal_date = ?";
+
+    static {
+        StringJoiner total = new StringJoiner(" + ");
+        for (MealSlot s : MealSlot.values()) total.add("COALESCE(" + s.caloriesColumn() + ", 0)");
+        TOTAL_FROM_SLOTS = total.toString();
+
+        StringJoiner dayTotals = new StringJoiner(", ");
+        dayTotals.add("total_calories = " + TOTAL_FROM_SLOTS);
+        for (Macro m : Macro.values()) {
+            StringJoiner sum = new StringJoiner(" + ");
+            for (MealSlot s : MealSlot.values()) sum.add(m.column(s));
+            dayTotals.add(m.totalColumn() + " = " + sum);
+        }
+        DAY_TOTALS_FROM_SLOTS = dayTotals.toString();
+
+        List<String> dayColumns = new ArrayList<>();
+        for (MealSlot s : MealSlot.values()) {
+            dayColumns.add(s.column());
+            dayColumns.add(s.caloriesColumn());
+            for (Macro m : Macro.values()) dayColumns.add(m.column(s));
+        }
+        dayColumns.add("total_calories");
+        for (Macro m : Macro.values()) dayColumns.add(m.totalColumn());
+        StringJoiner columns = new StringJoiner(", ", "user_id, meal_date, ", ", created_at, updated_at, change_seq");
+        StringJoiner updates = new StringJoiner(", ", "",
+                ", version = version + 1, change_seq = VALUES(change_seq), updated_at = VALUES(updated_at)");
+        for (String column : dayColumns) {
+            columns.add(column);
+            updates.add(column + " = VALUES(" + column + ")");
+        }
+        UPSERT_DAY_SQL = "INSERT INTO user_daily_meals (" + columns + ") "
+                + "VALUES (" + placeholders(dayColumns.size() + 4) + ", LAST_INSERT_ID() - ?) "
+                + "ON DUPLICATE KEY UPDATE " + updates;
+
+        StringJoiner emptyDay = new StringJoiner(", ");
+        emptyDay.add("user_id").add("meal_date");
+        for (MealSlot s : MealSlot.values()) emptyDay.add(s.caloriesColumn());
+        emptyDay.add("total_calories").add("created_at").add("updated_at");
+        // a no-op update still takes the row's exclusive lock
+        LOCK_DAY_SQL = "INSERT INTO user_daily_meals (" + emptyDay + ") "
+                + "VALUES (?, ?, " + placeholders(MealSlot.values().length + 3) + ") "
+                + "ON DUPLICATE KEY UPDATE id = id";
+
+        StringJoiner slotColumns = new StringJoiner(", ");
+        StringJoiner calorieColumns = new StringJoiner(", ");
+        for (MealSlot s : MealSlot.values()) {
+            slotColumns.add(s.column());
+            calorieColumns.add(s.caloriesColumn());
+            for (Macro m : Macro.values()) slotColumns.add(m.column(s));
+        }
+        for (Macro m : Macro.values()) slotColumns.add(m.totalColumn());
+        String rangeFrom = " FROM user_daily_meals WHERE user_id = ? AND meal_date BETWEEN ? AND ? ORDER BY meal_date";
+        String dayColumnsSelect = "SELECT id, user_id, meal_date, " + slotColumns + ", " + calorieColumns
+                + ", total_calories, version, change_seq, created_at, updated_at";
+        RANGE_SQL = dayColumnsSelect + rangeFrom;
+        RANGE_CALORIES_SQL = "SELECT id, user_id, meal_date, " + calorieColumns
+                + ", total_calories, version, change_seq, created_at, updated_at" + rangeFrom;
+        StringJoiner macroColumns = new StringJoiner(", ");
+        for (MealSlot s : MealSlot.values()) {
+            for (Macro m : Macro.values()) macroColumns.add(m.column(s));
+        }
+        for (Macro m : Macro.values()) macroColumns.add(m.totalColumn());
+        FOR_UPDATE_SQL = "SELECT id, user_id, meal_date, " + calorieColumns + ", " + macroColumns
+                + ", total_calories, version, change_seq, created_at, updated_at "
+                + "FROM user_daily_meals WHERE user_id = ? AND meal_date = ? FOR UPDATE";
+        CHANGES_SQL = dayColumnsSelect
+                + " FROM user_daily_meals WHERE user_id = ? AND change_seq > ? ORDER BY change_seq LIMIT ?";
+        DAYS_IN_SQL_PREFIX = dayColumnsSelect + " FROM user_daily_meals WHERE user_id = ? AND meal_date IN (";
+
+        for (MealSlot slot : MealSlot.values()) {
+            String json = slot.column();
+            String calories = slot.caloriesColumn();
+            // the number at the path bound twice before it (an item's macro); 0 when missing or not a number
+            String itemNumber = "IF(JSON_TYPE(JSON_EXTRACT(" + json + ", ?)) IN "
+                    + "('INTEGER', 'UNSIGNED INTEGER', 'DOUBLE', 'DECIMAL'), JSON_EXTRACT(" + json + ", ?) + 0, 0)";
+
+            StringJoiner insertColumns = new StringJoiner(", ");
+            insertColumns.add("user_id").add("meal_date").add(json);
+            for (MealSlot s : MealSlot.values()) insertColumns.add(s.caloriesColumn());
+            for (Macro m : Macro.values()) insertColumns.add(m.column(slot));
+            insertColumns.add("total_calories");
+            for (Macro m : Macro.values()) insertColumns.add(m.totalColumn());
+            insertColumns.add("created_at").add("updated_at").add("change_seq");
+            StringJoiner appendMacros = new StringJoiner(", ");
+            StringJoiner replaceMacros = new StringJoiner(", ");
+            StringJoiner removeMacros = new StringJoiner(", ");
+            for (Macro m : Macro.values()) {
+                String column = m.column(slot);
+                appendMacros.add(column + " = IF(" + json + " IS NULL, VALUES(" + column + "), " + column + " + VALUES(" + column + "))");
+                replaceMacros.add(column + " = " + column + " - " + itemNumber + " + ?");
+                removeMacros.add(column + " = " + column + " - " + itemNumber);
+            }
+            APPEND_ITEM_SQL.put(slot, "INSERT INTO user_daily_meals (" + insertColumns + ") "
+                    + "VALUES (?, ?, JSON_OBJECT('mealType', ?, 'items', JSON_ARRAY(CAST(? AS JSON)), 'totalCalories', ?), "
+                    + placeholders(MealSlot.values().length + 2 * Macro.values().length + 3) + ", LAST_INSERT_ID()) "
+                    + "ON DUPLICATE KEY UPDATE "
+                    + calories + " = IF(" + json + " IS NULL, VALUES(" + calories + "), COALESCE(" + calories + ", 0) + VALUES(" + calories + ")), "
+                    + appendMacros + ", "
+                    + json + " = IF(" + json + " IS NULL, VALUES(" + json + "), JSON_SET("
+                    + "JSON_ARRAY_APPEND(" + json + ", '$.items', JSON_EXTRACT(VALUES(" + json + "), '$.items[0]')), "
+                    + "'$.totalCalories', " + calories + ")), "
+                    + DAY_TOTALS_FROM_SLOTS + ", "
+                    + "version = version + 1, change_seq = VALUES(change_seq), updated_at = VALUES(updated_at)");
+
+            REPLACE_ITEM_SQL.put(slot, "UPDATE user_daily_meals SET "
+                    + calories + " = COALESCE(" + calories + ", 0) - " + itemNumber + " + ?, "
+                    + replaceMacros + ", "
+                    + json + " = JSON_SET(" + json + ", ?, CAST(? AS JSON), '$.totalCalories', " + calories + "), "
+                    + DAY_TOTALS_FROM_SLOTS + ", "
+                    + "version = version + 1, change_seq = LAST_INSERT_ID(), updated_at = ? "
+                    + "WHERE user_id = ? AND meal_date = ? AND JSON_CONTAINS_PATH(" + json + ", 'one', ?)");
+
+            REMOVE_ITEM_SQL.put(slot, "UPDATE user_daily_meals SET "
+                    + calories + " = COALESCE(" + calories + ", 0) - " + itemNumber + ", "
+                    + removeMacros + ", "
+                    + json + " = JSON_SET(JSON_REMOVE(" + json + ", ?), '$.totalCalories', " + calories + "), "
+                    + DAY_TOTALS_FROM_SLOTS + ", "
+                    + "version = version + 1, change_seq = LAST_INSERT_ID(), updated_at = ? "
+                    + "WHERE user_id = ? AND meal_date = ? AND JSON_CONTAINS_PATH(" + json + ", 'one', ?)");
+
+            SLOT_TOTALS_SQL.put(slot, "SELECT COALESCE(JSON_LENGTH(" + json + ", '$.items'), 0), "
+                    + calories + ", total_calories "
+                    + "FROM user_daily_meals WHERE user_id = ? AND meal_date = ?");
+        }
+    }
+
+    // one statement per combination of slots written together; at most 63
+    private final Map<Set<MealSlot>, String> upsertSlotsSql = new ConcurrentHashMap<>();
+    private final Map<Set<MealSlot>, String> copyDaySql = new ConcurrentHashMap<>();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UserDailyMealsRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void lockDay(Long userId, LocalDate mealDate) {
+        jdbcTemplate.update(LOCK_DAY_SQL, lockDayArgs(userId, mealDate, LocalDateTime.now()));
+    }
+
+    @Override
+    public void lockDays(Long userId, Collection<LocalDate> mealDates) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object[]> batch = new ArrayList<>();
+        for (LocalDate mealDate : new TreeSet<>(mealDates)) batch.add(lockDayArgs(userId, mealDate, now));
+        jdbcTemplate.batchUpdate(LOCK_DAY_SQL, batch);
+    }
+
+    @Override
+    public Optional<UserDailyMeals> findForUpdate(Long userId, LocalDate mealDate) {
+        List<UserDailyMeals> rows = jdbcTemplate.query(FOR_UPDATE_SQL, (rs, n) -> {
+            UserDailyMeals row = mapDay(rs, false);
+            for (MealSlot s : MealSlot.values()) s.setMacros(row, mapMacros(rs, s.column()));
+            row.setTotalMacros(mapMacros(rs, "total"));
+            return row;
+        }, userId, mealDate);
+        return rows.stream().findFirst();
+    }
+
+    @Override
+    public void takeChangeSeq(Long userId, int count) {
+        jdbcTemplate.update(NEXT_CHANGE_SEQ_SQL, userId, count);
+    }
+
+    @Override
+    public void upsertSlots(UserDailyMeals row, Set<MealSlot> slots) {
+        if (slots.isEmpty()) return;
+        Set<MealSlot> key = EnumSet.copyOf(slots);
+        LocalDateTime now = LocalDateTime.now();
+
+        MealSlot[] all = MealSlot.values();
+        Macro[] macros = Macro.values();
+        Object[] args = new Object[key.size() * (1 + macros.length) + all.length + macros.length + 5];
+        int i = 0;
+        args[i++] = row.getUserId();
+        args[i++] = row.getMealDate();
+        MacroTotals totalMacros = new MacroTotals();
+        for (MealSlot s : key) {
+            args[i++] = s.json(row);
+            MacroTotals slotMacros = s.macros(row);
+            for (Macro m : macros) args[i++] = slotMacros == null ? 0d : slotMacros.get(m);
+            totalMacros.add(slotMacros);
+        }
+        double total = 0d;
+        for (MealSlot s : all) {
+            double calories = key.contains(s) && s.calories(row) != null ? s.calories(row) : 0d;
+            args[i++] = calories;
+            total += calories;
+        }
+        args[i++] = total;
+        for (Macro m : macros) args[i++] = totalMacros.get(m);
+        args[i++] = now;
+        args[i] = now;
+        jdbcTemplate.update(upsertSlotsSql.computeIfAbsent(key, UserDailyMealsRepositoryImpl::upsertSlotsSql), args);
+    }
+
+    @Override
+    public void upsertDay(UserDailyMeals row) {
+        jdbcTemplate.update(UPSERT_DAY_SQL, upsertDayArgs(row, LocalDateTime.now(), 0));
+    }
+
+    @Override
+    public void upsertDays(Collection<UserDailyMeals> rows) {
+        LocalDateTime now = LocalDateTime.now();
+        List<UserDailyMeals> byDate = new ArrayList<>(rows);
+        byDate.sort(Comparator.comparing(UserDailyMeals::getMealDate));
+        List<Object[]> batch = new ArrayList<>();
+        // the last day gets the last number taken, the day before it the number before, and so on
+        for (int i = 0; i < byDate.size(); i++) batch.add(upsertDayArgs(byDate.get(i), now, byDate.size() - 1 - i));
+        jdbcTemplate.batchUpdate(UPSERT_DAY_SQL, batch);
+    }
+
+    @Override
+    public void appendItem(Long userId, LocalDate mealDate, MealSlot slot, String itemJson, double calories, MacroTotals macros) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Object> args = new ArrayList<>();
+        args.add(userId);
+        args.add(mealDate);
+        args.add(slot.jsonKey());
+        args.add(itemJson);
+        args.add(calories);
+        for (MealSlot s : MealSlot.values()) args.add(s == slot ? calories : 0d);
+        addMacros(args, macros);
+        args.add(calories);
+        addMacros(args, macros);
+        args.add(now);
+        args.add(now);
+        jdbcTemplate.update(APPEND_ITEM_SQL.get(slot), args.toArray());
+    }
+
+    @Override
+    public boolean replaceItem(Long userId, LocalDate mealDate, MealSlot slot, int index, String itemJson, double calories, MacroTotals macros) {
+        String itemPath = "$.items[" + index + "]";
+        List<Object> args = new ArrayList<>();
+        args.add(itemPath + ".macros.calories");
+        args.add(itemPath + ".macros.calories");
+        args.add(calories);
+        for (Macro m : Macro.values()) {
+            args.add(itemPath + ".macros." + m.key());
+            args.add(itemPath + ".macros." + m.key());
+            args.add(macros.get(m));
+        }
+        args.add(itemPath);
+        args.add(itemJson);
+        args.add(LocalDateTime.now());
+        args.add(userId);
+        args.add(mealDate);
+        args.add(itemPath);
+        return jdbcTemplate.update(REPLACE_ITEM_SQL.get(slot), args.toArray()) > 0;
+    }
+
+    @Override
+    public boolean removeItem(Long userId, LocalDate mealDate, MealSlot slot, int index) {
+        String itemPath = "$.items[" + index + "]";
+        List<Object> args = new ArrayList<>();
+        args.add(itemPath + ".macros.calories");
+        args.add(itemPath + ".macros.calories");
+        for (Macro m : Macro.values()) {
+            args.add(itemPath + ".macros." + m.key());
+            args.add(itemPath + ".macros." + m.key());
+        }
+        args.add(itemPath);
+        args.add(LocalDateTime.now());
+        args.add(userId);
+        args.add(mealDate);
+        args.add(itemPath);
+        return jdbcTemplate.update(REMOVE_ITEM_SQL.get(slot), args.toArray()) > 0;
+    }
+
+    @Override
+    public int copyDay(Long userId, LocalDate sourceDate, Collection<LocalDate> targetDates, Set<MealSlot> slots) {
+        if (slots.isEmpty() || targetDates.isEmpty()) return 0;
+        Set<LocalDate> targets = new TreeSet<>(targetDates);
+        StringJoiner dates = new StringJoiner(",", "[", "]");
+        for (LocalDate date : targets) dates.add("\"" + date + "\"");
+        LocalDateTime now = LocalDateTime.now();
+        return jdbcTemplate.update(copyDaySql.computeIfAbsent(EnumSet.copyOf(slots), UserDailyMealsRepositoryImpl::copyDaySql),
+                now, now, targets.size(), dates.toString(), userId, sourceDate);
+    }
+
+    @Override
+    public Optional<MealSlotTotals> findSlotTotals(Long userId, LocalDate mealDate, MealSlot slot) {
+        List<MealSlotTotals> rows = jdbcTemplate.query(SLOT_TOTALS_SQL.get(slot),
+                (rs, n) -> new MealSlotTotals(slot.jsonKey(), rs.getInt(1), rs.getDouble(2), rs.getDouble(3)),
+                userId, mealDate);
+        return rows.stream().findFirst();
+    }
+
+    @Override
+    public Optional<MealDayVersion> findVersion(Long userId, LocalDate mealDate) {
+        List<MealDayVersion> rows = jdbcTemplate.query(VERSION_SQL,
+                (rs, n) -> new MealDayVersion(rs.getLong(1), rs.getLong(2), rs.getObject(3, LocalDateTime.class)),
+                userId, mealDate);
+        return rows.stream().findFirst();
+    }
+
+    @Override
+    public List<UserDailyMeals> findDays(Long userId, Collection<LocalDate> mealDates) {
+        if (mealDates.isEmpty()) return List.of();
+        List<Object> args = new ArrayList<>();
+        args.add(userId);
+        args.addAll(mealDates);
+        return jdbcTemplate.query(DAYS_IN_SQL_PREFIX + placeholders(mealDates.size()) + ") ORDER BY meal_date",
+                (rs, n) -> mapDay(rs, true), args.toArray());
+    }
+
+    @Override
+    public List<UserDailyMeals> findChangedSince(Long userId, long sinceSeq, int limit) {
+        return jdbcTemplate.query(CHANGES_SQL, (rs, n) -> mapDay(rs, true), userId, sinceSeq, limit);
+    }
+
+    @Override
+    public void streamRange(Long userId, LocalDate from, LocalDate to, boolean withSlots, Consumer<UserDailyMeals> action) {
+        String sql = withSlots ? RANGE_SQL : RANGE_CALORIES_SQL;
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(RANGE_FETCH_SIZE);
+            ps.setLong(1, userId);
+            ps.setObject(2, from);
+            ps.setObject(3, to);
+            return ps;
+        }, (RowCallbackHandler) rs -> action.accept(mapDay(rs, withSlots)));
+    }
+
+    private static UserDailyMeals mapDay(ResultSet rs, boolean withSlots) throws SQLException {
+        UserDailyMeals row = new UserDailyMeals();
+        row.setId(rs.getLong("id"));
+        row.setUserId(rs.getLong("user_id"));
+        row.setMealDate(rs.getObject("meal_date", LocalDate.class));
+        for (MealSlot s : MealSlot.values()) {
+            s.set(row, withSlots ? rs.getString(s.column()) : null, rs.getObject(s.caloriesColumn(), Double.class));
+            if (withSlots) s.setMacros(row, mapMacros(rs, s.column()));
+        }
+        row.setTotalCalories(rs.getObject("total_calories", Double.class));
+        if (withSlots) row.setTotalMacros(mapMacros(rs, "total"));
+        row.setVersion(rs.getLong("version"));
+        row.setChangeSeq(rs.getLong("change_seq"));
+        row.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        row.setUpdatedAt(rs.getObject("updated_at", LocalDateTime.class));
+        return row;
+    }
+
+    private static Object[] lockDayArgs(Long userId, LocalDate mealDate, LocalDateTime now) {
+        MealSlot[] all = MealSlot.values();
+        Object[] args = new Object[all.length + 5];
+        int i = 0;
+        args[i++] = userId;
+        args[i++] = mealDate;
+        for (int s = 0; s <= all.length; s++) args[i++] = 0d;
+        args[i++] = now;
+        args[i] = now;
+        return args;
+    }
+
+    // seqBack: how far the day's change sequence number is below the last one taken
+    private static Object[] upsertDayArgs(UserDailyMeals row, LocalDateTime now, int seqBack) {
+        List<Object> args = new ArrayList<>();
+        args.add(row.getUserId());
+        args.add(row.getMealDate());
+        for (MealSlot s : MealSlot.values()) {
+            args.add(s.json(row));
+            args.add(s.calories(row));
+            addMacros(args, s.macros(row));
+        }
+        args.add(row.getTotalCalories());
+        addMacros(args, row.getTotalMacros());
+        args.add(now);
+        args.add(now);
+        args.add(seqBack);
+        return args.toArray();
+    }
+
+    private static MacroTotals mapMacros(ResultSet rs, String columnPrefix) throws SQLException {
+        MacroTotals macros = new MacroTotals();
+        for (Macro m : Macro.values()) macros.add(m, rs.getDouble(columnPrefix + "_" + m.key()));
+        return macros;
+    }
+
+    private static void addMacros(List<Object> args, MacroTotals macros) {
+        for (Macro m : Macro.values()) args.add(macros == null ? 0d : macros.get(m));
+    }
+
+    // a new row gets zero calories in the slots not written; their macro columns default to zero
+    private static String upsertSlotsSql(Set<MealSlot> slots) {
+        StringJoiner columns = new StringJoiner(", ");
+        StringJoiner updates = new StringJoiner(", ");
+        columns.add("user_id").add("meal_date");
+        for (MealSlot s : slots) {
+            columns.add(s.column());
+            updates.add(s.column() + " = VALUES(" + s.column() + ")");
+            updates.add(s.caloriesColumn() + " = VALUES(" + s.caloriesColumn() + ")");
+            for (Macro m : Macro.values()) {
+                columns.add(m.column(s));
+                updates.add(m.column(s) + " = VALUES(" + m.column(s) + ")");
+            }
+        }
+        for (MealSlot s : MealSlot.values()) columns.add(s.caloriesColumn());
+        columns.add("total_calories");
+        for (Macro m : Macro.values()) columns.add(m.totalColumn());
+        columns.add("created_at").add("updated_at").add("change_seq");
+        updates.add(DAY_TOTALS_FROM_SLOTS).add("version = version + 1").add("change_seq = VALUES(change_seq)")
+                .add("updated_at = VALUES(updated_at)");
+        return "INSERT INTO user_daily_meals (" + columns + ") "
+                + "VALUES (" + placeholders(slots.size() * (1 + Macro.values().length) + MealSlot.values().length + Macro.values().length + 5)
+                + ", LAST_INSERT_ID()) "
+                + "ON DUPLICATE KEY UPDATE " + updates;
+    }
+
+    // a new target gets zero calories in the other slots and totals from the copied ones; the selected
+    // columns are aliased (c0, c1, ...) so names in the update clause can only mean the target row.
+    // The targets come in date order (t.n counts them) and take the last change sequence numbers in that order.
+    private static String copyDaySql(Set<MealSlot> slots) {
+        List<String> columns = new ArrayList<>();
+        List<String> select = new ArrayList<>();
+        StringJoiner updates = new StringJoiner(", ");
+        columns.add("user_id");
+        select.add("s.user_id");
+        columns.add("meal_date");
+        select.add("t.meal_date");
+
+        StringJoiner totalCalories = new StringJoiner(" + ");
+        Map<Macro, StringJoiner> totalMacros = new EnumMap<>(Macro.class);
+        for (Macro m : Macro.values()) totalMacros.put(m, new StringJoiner(" + "));
+        for (MealSlot s : MealSlot.values()) {
+            String calories = s.caloriesColumn();
+            if (!slots.contains(s)) {
+                columns.add(calories);
+                select.add("0");
+                continue;
+            }
+            String json = s.column();
+            String copied = "VALUES(" + json + ") IS NOT NULL";
+            columns.add(json);
+            select.add("s." + json);
+            columns.add(calories);
+            select.add("COALESCE(s." + calories + ", 0)");
+            totalCalories.add("COALESCE(s." + calories + ", 0)");
+            updates.add(calories + " = IF(" + copied + ", VALUES(" + calories + "), " + calories + ")");
+            for (Macro m : Macro.values()) {
+                String column = m.column(s);
+                columns.add(column);
+                select.add("s." + column);
+                totalMacros.get(m).add("s." + column);
+                updates.add(column + " = IF(" + copied + ", VALUES(" + column + "), " + column + ")");
+            }
+            updates.add(json + " = COALESCE(VALUES(" + json + "), " + json + ")");
+        }
+        columns.add("total_calories");
+        select.add(totalCalories.toString());
+        for (Macro m : Macro.values()) {
+            columns.add(m.totalColumn());
+            select.add(totalMacros.get(m).toString());
+        }
+        columns.add("created_at");
+        select.add("?");
+        columns.add("updated_at");
+        select.add("?");
+        columns.add("change_seq");
+        select.add("LAST_INSERT_ID() - ? + t.n");
+        updates.add(DAY_TOTALS_FROM_SLOTS).add("version = version + 1").add("change_seq = VALUES(change_seq)")
+                .add("updated_at = VALUES(updated_at)");
+
+        StringJoiner aliased = new StringJoiner(", ");
+        for (int i = 0; i < select.size(); i++) aliased.add(select.get(i) + " AS c" + i);
+        return "INSERT INTO user_daily_meals (" + String.join(", ", columns) + ") "
+                + "SELECT * FROM (SELECT " + aliased + " FROM user_daily_meals s "
+                + "JOIN JSON_TABLE(?, '$[*]' COLUMNS (n FOR ORDINALITY, meal_date DATE PATH '$')) t "
+                + "WHERE s.user_id = ? AND s.meal_date = ?) src "
+                + "ON DUPLICATE KEY UPDATE " + updates;
+    }
+
+    private static String placeholders(int count) {
+        StringJoiner joiner = new StringJoiner(", ");
+        for (int i = 0; i < count; i++) joiner.add("?");
+        return joiner.toString();
+    }
+}
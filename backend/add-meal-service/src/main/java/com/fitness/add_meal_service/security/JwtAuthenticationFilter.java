@@ -0,0 +1,91 @@
+package com.fitness.add_meal_service.security;
+
+import com.fitness.add_meal_service.service.UserIdResolver;
+import com.fitness.add_meal_service.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Verifies the bearer token once per request and authenticates the request as an
+ * {@link AuthenticatedUser}. A request with a bad token, or one naming no known user, is answered
+ * 401 here, before any controller or query runs; a request without a token passes through
+ * unauthenticated and is left to the authorization rules. Nothing is kept in a session. Callers
+ * whose token email is one of {@code adminEmails} are also granted {@code ROLE_ADMIN}.
+ */
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private final JwtUtil jwtUtil;
+    private final UserIdResolver userIdResolver;
+    private final Set<String> adminEmails;
+
+    public JwtAuthenticationFilter(JwtUtil jwtUtil, UserIdResolver userIdResolver, Set<String> adminEmails) {
+        this.jwtUtil = jwtUtil;
+        this.userIdResolver = userIdResolver;
+        this.adminEmails = adminEmails.stream()
+                .map(email -> email.trim().toLowerCase(Locale.ROOT))
+                .filter(email -> !email.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || authorization.isBlank()) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        AuthenticatedUser user = authenticate(authorization);
+        if (user == null) {
+            reject(response);
+            return;
+        }
+        SecurityContext context = SecurityContextHolder.createEmptyContext();
+        context.setAuthentication(UsernamePasswordAuthenticationToken.authenticated(user, null, authorities(user)));
+        SecurityContextHolder.setContext(context);
+        chain.doFilter(request, response);
+    }
+
+    private AuthenticatedUser authenticate(String authorization) {
+        Claims claims;
+        try {
+            claims = jwtUtil.parseClaims(authorization);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        if (claims == null) return null;
+        Long userId = userIdResolver.fromClaims(claims);
+        return userId == null ? null : new AuthenticatedUser(userId, claims.getSubject());
+    }
+
+    private List<GrantedAuthority> authorities(AuthenticatedUser user) {
+        boolean admin = user.email() != null && adminEmails.contains(user.email().toLowerCase(Locale.ROOT));
+        return admin ? List.of(new SimpleGrantedAuthority("ROLE_ADMIN")) : List.of();
+    }
+
+    private static void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        response.setHeader(HttpHeaders.WWW_AUTHENTICATE, "Bearer error=\"invalid_token\"");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.getWriter().write("{\"error\":\"Invalid or expired token\"}");
+    }
+}
@@ -0,0 +1,77 @@
+package com.fitness.add_meal_service.security;
+
+import com.fitness.add_meal_service.service.UserIdResolver;
+import com.fitness.add_meal_service.util.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeInterceptor;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.util.Map;
+
+/**
+ * Authenticates WebSocket handshakes. A handshake with an Authorization header has already been
+ * authenticated by {@link JwtAuthenticationFilter}; clients that cannot set headers on a WebSocket
+ * pass the token as the {@code access_token} query parameter instead, which is verified here.
+ * Handshakes with neither are refused with 401. The caller is stored in the session attributes
+ * under {@link #USER}.
+ */
+@Component
+public class TokenHandshakeInterceptor implements HandshakeInterceptor {
+
+    public static final String USER = "user";
+    private static final String TOKEN_PARAM = "access_token";
+
+    private final JwtUtil jwtUtil;
+    private final UserIdResolver userIdResolver;
+
+    public TokenHandshakeInterceptor(JwtUtil jwtUtil, UserIdResolver userIdResolver) {
+        this.jwtUtil = jwtUtil;
+        this.userIdResolver = userIdResolver;
+    }
+
+    @Override
+    public boolean beforeHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                                   WebSocketHandler wsHandler, Map<String, Object> attributes) {
+        AuthenticatedUser user = fromSecurityContext();
+        if (user == null) {
+            user = fromQueryToken(request);
+        }
+        if (user == null) {
+            response.setStatusCode(HttpStatus.UNAUTHORIZED);
+            return false;
+        }
+        attributes.put(USER, user);
+        return true;
+    }
+
+    @Override
+    public void afterHandshake(ServerHttpRequest request, ServerHttpResponse response,
+                               WebSocketHandler wsHandler, Exception exception) {
+    }
+
+    private static AuthenticatedUser fromSecurityContext() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.getPrincipal() instanceof AuthenticatedUser user ? user : null;
+    }
+
+    private AuthenticatedUser fromQueryToken(ServerHttpRequest request) {
+        String token = UriComponentsBuilder.fromUri(request.getURI()).build().getQueryParams().getFirst(TOKEN_PARAM);
+        Claims claims;
+        try {
+            claims = jwtUtil.parseClaims(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            return null;
+        }
+        if (claims == null) return null;
+        Long userId = userIdResolver.fromClaims(claims);
+        return userId == null ? null : new AuthenticatedUser(userId, claims.getSubject());
+    }
+}
@@ -0,0 +1,247 @@
+package com.fitness.add_meal_service.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fitness.add_meal_service.catalog.MealSearchCache;
+import com.fitness.add_meal_service.dto.ManualMealImportReport;
+import com.fitness.add_meal_service.dto.ManualMealRequest;
+import com.fitness.add_meal_service.repository.ManualMealRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Bulk loader for the food catalog.
+ *
+ * The input is read one line at a time and written in chunks of {@link #CHUNK_SIZE} rows, each
+ * chunk as one JDBC batch in its own transaction. Only the set of names seen so far is kept in
+ * memory. Rows bypass Hibernate because IDENTITY ids make it give up on insert batching; with
+ * {@code rewriteBatchedStatements=true} on the datasource URL each chunk goes over as a single
+ * multi-row INSERT. Names already in the table are skipped by the unique index
+ * ({@code ON DUPLICATE KEY UPDATE id = id}, so any other error still fails the chunk). Each chunk
+ * counts its own names before and after the insert, so meals added by others during an import do
+ * not skew the report, and whatever committed is indexed even if a later chunk fails.
+ */
+@Service
+public class ManualMealImportService {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final int MAX_REPORTED_REJECTS = 100;
+
+    private static final String INSERT_SQL = """
+            INSERT INTO manual_meals
+                (meal_name, weight, weight_unit, calories, carbs, protein, fats, fiber, created_at, updated_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON DUPLICATE KEY UPDATE id = id
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final ManualMealRepository manualMealRepository;
+    private final ManualMealService manualMealService;
+    private final MealSearchCache mealSearchCache;
+
+    public ManualMealImportService(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            ObjectMapper objectMapper,
+            ManualMealRepository manualMealRepository,
+            ManualMealService manualMealService,
+            MealSearchCache mealSearchCache
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.manualMealRepository = manualMealRepository;
+        this.manualMealService = manualMealService;
+        this.mealSearchCache = mealSearchCache;
+    }
+
+    public ManualMealImportReport importMeals(InputStream in, Format format) throws IOException {
+        long started = System.nanoTime();
+        long maxIdBefore = manualMealRepository.findMaxId();
+
+        ManualMealImportReport report = new ManualMealImportReport();
+        Set<String> seenNames = new HashSet<>();
+        List<ManualMealRequest> chunk = new ArrayList<>(CHUNK_SIZE);
+        long accepted = 0;
+        long inserted = 0;
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        Map<String, Integer> csvColumns = format == Format.CSV ? readCsvHeader(reader.readLine()) : null;
+        int lineNo = format == Format.CSV ? 1 : 0;
+
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) continue;
+                report.setRowsRead(report.getRowsRead() + 1);
+
+                ManualMealRequest meal;
+                try {
+                    meal = format == Format.CSV ? parseCsvRow(line, csvColumns) : objectMapper.readValue(line, ManualMealRequest.class);
+                } catch (Exception e) {
+                    reject(report, lineNo, "unparseable row");
+                    continue;
+                }
+
+                String invalid = ManualMealService.validate(meal);
+                if (invalid != null) {
+                    reject(report, lineNo, invalid);
+                    continue;
+                }
+                meal.setMealName(meal.getMealName().trim());
+                if (!seenNames.add(meal.getMealName().toLowerCase(Locale.ROOT))) {
+                    report.setDuplicatesInFile(report.getDuplicatesInFile() + 1);
+                    continue;
+                }
+
+                chunk.add(meal);
+                accepted++;
+                if (chunk.size() == CHUNK_SIZE) {
+                    inserted += writeChunk(chunk);
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                inserted += writeChunk(chunk);
+            }
+        } finally {
+            // pick the committed rows up in the search index; cached keywords may now match many of them
+            manualMealService.indexMealsAfter(maxIdBefore);
+            mealSearchCache.invalidateAll();
+        }
+
+        long elapsedNanos = System.nanoTime() - started;
+        report.setInserted(inserted);
+        report.setAlreadyInCatalog(Math.max(0, accepted - inserted));
+        report.setElapsedMs(elapsedNanos / 1_000_000);
+        report.setRowsPerSecond(elapsedNanos == 0 ? 0 : report.getRowsRead() * 1_000_000_000d / elapsedNanos);
+        return report;
+    }
+
+    /** Writes one chunk in its own transaction and returns how many of its meals were new. */
+    private int writeChunk(List<ManualMealRequest> chunk) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        Object[] names = chunk.stream().map(ManualMealRequest::getMealName).toArray();
+        String countSql = "SELECT COUNT(*) FROM manual_meals WHERE meal_name IN ("
+                + String.join(",", Collections.nCopies(names.length, "?")) + ")";
+        Integer inserted = transactionTemplate.execute(status -> {
+            // both counts read this transaction's snapshot plus its own inserts, so rows other writers
+            // commit meanwhile are not counted as ours
+            int before = jdbcTemplate.queryForObject(countSql, Integer.class, names);
+            jdbcTemplate.batchUpdate(INSERT_SQL, chunk, chunk.size(), (ps, meal) -> {
+                ps.setString(1, meal.getMealName());
+                ps.setDouble(2, meal.getWeight());
+                ps.setString(3, meal.getWeightUnit().trim());
+                ps.setDouble(4, meal.getCalories());
+                ps.setObject(5, meal.getCarbs());
+                ps.setObject(6, meal.getProtein());
+                ps.setObject(7, meal.getFats());
+                ps.setObject(8, meal.getFiber());
+                ps.setTimestamp(9, now);
+                ps.setTimestamp(10, now);
+            });
+            return jdbcTemplate.queryForObject(countSql, Integer.class, names) - before;
+        });
+        return inserted == null ? 0 : inserted;
+    }
+
+    private void reject(ManualMealImportReport report, int lineNo, String reason) {
+        report.setRejected(report.getRejected() + 1);
+        if (report.getRejects().size() < MAX_REPORTED_REJECTS) {
+            report.getRejects().add("line " + lineNo + ": " + reason);
+        }
+    }
+
+    // --- CSV: header row with column names, one meal per line, RFC 4180 quoting without embedded newlines ---
+
+    private Map<String, Integer> readCsvHeader(String header) {
+        if (header == null) {
+            throw new IllegalArgumentException("CSV header row is required");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = splitCsv(header);
+        for (int i = 0; i < names.size(); i++) {
+            // accept mealName, meal_name, MEAL NAME ...
+            columns.put(names.get(i).replaceAll("[^A-Za-z]", "").toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("mealname") || !columns.containsKey("calories")) {
+            throw new IllegalArgumentException("CSV header must contain at least mealName and calories");
+        }
+        return columns;
+    }
+
+    private ManualMealRequest parseCsvRow(String line, Map<String, Integer> columns) {
+        List<String> values = splitCsv(line);
+        ManualMealRequest meal = new ManualMealRequest();
+        meal.setMealName(text(values, columns, "mealname"));
+        meal.setWeight(number(values, columns, "weight"));
+        meal.setWeightUnit(text(values, columns, "weightunit"));
+        meal.setCalories(number(values, columns, "calories"));
+        meal.setCarbs(number(values, columns, "carbs"));
+        meal.setProtein(number(values, columns, "protein"));
+        meal.setFats(number(values, columns, "fats"));
+        meal.setFiber(number(values, columns, "fiber"));
+        return meal;
+    }
+
+    private String text(List<String> values, Map<String, Integer> columns, String column) {
+        Integer i = columns.get(column);
+        if (i == null || i >= values.size()) return null;
+        String v = values.get(i).trim();
+        return v.isEmpty() ? null : v;
+    }
+
+    private Double number(List<String> values, Map<String, Integer> columns, String column) {
+        String v = text(values, columns, column);
+        return v == null ? null : Double.valueOf(v);
+    }
+
+    private List<String> splitCsv(String line) {
+        List<String> out = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                out.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        out.add(field.toString());
+        return out;
+    }
+}
@@ -1,13 +1,24 @@
 package com.fitness.add_meal_service.service;
 
+import com.fitness.add_meal_service.catalog.MealMacroTree;
+import com.fitness.add_meal_service.catalog.MealNutrientIndex;
+import com.fitness.add_meal_service.catalog.MealSearchCache;
+import com.fitness.add_meal_service.catalog.MealSearchIndex;
 import com.fitness.add_meal_service.dto.ManualMealRequest;
 import com.fitness.add_meal_service.dto.ManualMealResponse;
+import com.fitness.add_meal_service.dto.MealSearchPage;
+import com.fitness.add_meal_service.dto.NutrientQueryRequest;
 import com.fitness.add_meal_service.model.ManualMeal;
 import com.fitness.add_meal_service.repository.ManualMealRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -16,28 +27,64 @@ import java.util.stream.Collectors;
 @Service
 public class ManualMealService {
 
+    private static final int SEARCH_LIMIT = 10;
+    private static final int SEARCH_PAGE_DEFAULT_SIZE = 20;
+    private static final int SEARCH_PAGE_MAX_SIZE = 100;
+    private static final int NUTRIENT_QUERY_DEFAULT_LIMIT = 20;
+    private static final int NUTRIENT_QUERY_MAX_LIMIT = 100;
+    private static final int SIMILAR_DEFAULT_LIMIT = 10;
+    private static final int SIMILAR_MAX_LIMIT = 50;
+
     @Autowired
     private ManualMealRepository manualMealRepository;
 
+    @Autowired
+    private MealSearchIndex mealSearchIndex;
+
+    @Autowired
+    private MealSearchCache mealSearchCache;
+
+    @Autowired
+    private MealNutrientIndex mealNutrientIndex;
+
+    @Autowired
+    private MealMacroTree mealMacroTree;
+
+    /**
+     * Loads the whole catalog into the in-memory indexes in id order. Meals saved while this runs
+     * are added by {@link #addManualMeal} as well; {@link #indexMeal} drops the duplicate.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadCatalogIndexes() {
+        indexMealsAfter(0L);
+        mealSearchIndex.markReady();
+        mealNutrientIndex.markReady();
+        mealMacroTree.markReady();
+    }
+
+    /**
+     * Adds every meal with an id above {@code lastId} to the in-memory indexes and returns how many
+     * rows were read. Used for the startup load and to pick up rows written outside JPA.
+     */
+    public int indexMealsAfter(long lastId) {
+        int count = 0;
+        List<ManualMeal> batch;
+        do {
+            batch = manualMealRepository.findTop1000ByIdGreaterThanOrderByIdAsc(lastId);
+            for (ManualMeal meal : batch) {
+                indexMeal(toResponse(meal));
+                lastId = meal.getId();
+            }
+            count += batch.size();
+        } while (!batch.isEmpty());
+        return count;
+    }
+
     public ResponseEntity<?> addManualMeal(ManualMealRequest request) {
-        if (request.getMealName() == null || request.getMealName().trim().isEmpty()) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", "Meal name is required");
-            return ResponseEntity.badRequest().body(error);
-        }
-        if (request.getWeight() == null || request.getWeight() <= 0) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", "Weight must be greater than 0");
-            return ResponseEntity.badRequest().body(error);
-        }
-        if (request.getWeightUnit() == null || request.getWeightUnit().trim().isEmpty()) {
-            Map<String, String> error = new HashMap<>();
-            error.put("error", "Weight unit is required");
-            return ResponseEntity.badRequest().body(error);
-        }
-        if (request.getCalories() == null || request.getCalories() < 0) {
+        String invalid = validate(request);
+        if (invalid != null) {
             Map<String, String> error = new HashMap<>();
-            error.put("error", "Calories must be specified and non-negative");
+            error.put("error", invalid);
             return ResponseEntity.badRequest().body(error);
         }
 
@@ -60,10 +107,17 @@ public class ManualMealService {
 
         ManualMeal saved = manualMealRepository.save(manualMeal);
         ManualMealResponse response = toResponse(saved);
+        indexMeal(response);
+        mealSearchCache.invalidateMatching(saved.getMealName());
         return ResponseEntity.ok(response);
     }
 
     public List<ManualMealResponse> search(String keyword) {
+        if (mealSearchIndex.isReady()) {
+            return mealSearchCache.get(MealSearchIndex.normalize(keyword), q -> mealSearchIndex.search(q, SEARCH_LIMIT));
+        }
+
+        // index still warming up after startup
         return manualMealRepository
                 .findTop10ByMealNameContainingIgnoreCaseOrderByMealNameAsc(keyword.trim())
                 .stream()
@@ -71,6 +125,143 @@ public class ManualMealService {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Keyset-paginated variant of {@link #search}: every meal containing the keyword, in name order,
+     * {@code size} at a time. {@code cursor} is the {@code nextCursor} of the previous page.
+     * Pages come only from the search index, whose order a cursor encodes, so this answers 503
+     * until the index is loaded rather than mixing pages from a differently ordered query.
+     */
+    public ResponseEntity<?> searchPage(String keyword, String cursor, Integer size) {
+        if (!mealSearchIndex.isReady()) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Meal catalog is still loading, try again shortly");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+        }
+
+        int pageSize = size == null ? SEARCH_PAGE_DEFAULT_SIZE : size;
+        if (pageSize < 1 || pageSize > SEARCH_PAGE_MAX_SIZE) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "size must be between 1 and " + SEARCH_PAGE_MAX_SIZE);
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        String afterName = null;
+        long afterId = 0L;
+        if (cursor != null && !cursor.isEmpty()) {
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int sep = decoded.indexOf(':');
+                afterId = Long.parseLong(decoded.substring(0, sep));
+                afterName = decoded.substring(sep + 1);
+            } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+                Map<String, String> error = new HashMap<>();
+                error.put("error", "Invalid cursor");
+                return ResponseEntity.badRequest().body(error);
+            }
+        }
+
+        // one extra row tells whether there is a next page
+        List<ManualMealResponse> items = mealSearchIndex.page(keyword, afterName, afterId, pageSize + 1);
+
+        String nextCursor = null;
+        if (items.size() > pageSize) {
+            items = items.subList(0, pageSize);
+            ManualMealResponse last = items.get(pageSize - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString((last.getId() + ":" + last.getMealName()).getBytes(StandardCharsets.UTF_8));
+        }
+        return ResponseEntity.ok(new MealSearchPage(items, nextCursor));
+    }
+
+    public ResponseEntity<?> queryByNutrients(NutrientQueryRequest request) {
+        if (!mealNutrientIndex.isReady()) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Meal catalog is still loading, try again shortly");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+        }
+
+        MealNutrientIndex.SortKey sort = request.getSort() == null
+                ? MealNutrientIndex.SortKey.CALORIES
+                : MealNutrientIndex.SortKey.parse(request.getSort());
+        if (sort == null) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Invalid sort: " + request.getSort());
+            return ResponseEntity.badRequest().body(error);
+        }
+        int limit = request.getLimit() == null ? NUTRIENT_QUERY_DEFAULT_LIMIT : request.getLimit();
+        if (limit < 1 || limit > NUTRIENT_QUERY_MAX_LIMIT) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "limit must be between 1 and " + NUTRIENT_QUERY_MAX_LIMIT);
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        MealNutrientIndex.Query query = new MealNutrientIndex.Query()
+                .range(MealNutrientIndex.Nutrient.CALORIES, request.getMinCalories(), request.getMaxCalories())
+                .range(MealNutrientIndex.Nutrient.CARBS, request.getMinCarbs(), request.getMaxCarbs())
+                .range(MealNutrientIndex.Nutrient.PROTEIN, request.getMinProtein(), request.getMaxProtein())
+                .range(MealNutrientIndex.Nutrient.FATS, request.getMinFats(), request.getMaxFats())
+                .range(MealNutrientIndex.Nutrient.FIBER, request.getMinFiber(), request.getMaxFiber())
+                .orderBy(sort, "desc".equalsIgnoreCase(request.getOrder()))
+                .limit(limit);
+        return ResponseEntity.ok(mealNutrientIndex.query(query));
+    }
+
+    /** Meals whose protein/carbs/fats/fiber per 100 kcal are closest to the given meal's. */
+    public ResponseEntity<?> findSimilar(Long id, Integer limit) {
+        if (!mealMacroTree.isReady()) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Meal catalog is still loading, try again shortly");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+        }
+        int k = limit == null ? SIMILAR_DEFAULT_LIMIT : limit;
+        if (k < 1 || k > SIMILAR_MAX_LIMIT) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "limit must be between 1 and " + SIMILAR_MAX_LIMIT);
+            return ResponseEntity.badRequest().body(error);
+        }
+
+        ManualMealResponse meal = mealSearchIndex.findById(id);
+        if (meal == null) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Meal not found");
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+        }
+        if (meal.getCalories() == null || meal.getCalories() <= 0) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Meal has no calories to compare macros against");
+            return ResponseEntity.badRequest().body(error);
+        }
+        return ResponseEntity.ok(mealMacroTree.nearest(meal, k));
+    }
+
+    // the search index owns id de-duplication; the other indexes follow it
+    private void indexMeal(ManualMealResponse meal) {
+        if (mealSearchIndex.add(meal)) {
+            mealNutrientIndex.add(meal);
+            mealMacroTree.add(meal);
+        }
+    }
+
+    /**
+     * Field checks shared by the single-meal endpoint and the bulk importer; returns the error
+     * message, or null when the request is valid.
+     */
+    static String validate(ManualMealRequest request) {
+        if (request.getMealName() == null || request.getMealName().trim().isEmpty()) {
+            return "Meal name is required";
+        }
+        if (request.getWeight() == null || request.getWeight() <= 0) {
+            return "Weight must be greater than 0";
+        }
+        if (request.getWeightUnit() == null || request.getWeightUnit().trim().isEmpty()) {
+            return "Weight unit is required";
+        }
+        if (request.getCalories() == null || request.getCalories() < 0) {
+            return "Calories must be specified and non-negative";
+        }
+        return null;
+    }
+
     private ManualMealResponse toResponse(ManualMeal manualMeal) {
         ManualMealResponse res = new ManualMealResponse();
         res.setId(manualMeal.getId());
@@ -0,0 +1,138 @@
+package com.fitness.add_meal_service.service;
+
+import com.fitness.add_meal_service.dto.NutritionRollupsResponse;
+import com.fitness.add_meal_service.model.UserDailyMeals;
+import com.fitness.add_meal_service.repository.NutritionRollupRepository;
+import com.fitness.add_meal_service.repository.NutritionRollupRepository.DayTotals;
+import com.fitness.add_meal_service.repository.NutritionRollupRepository.Period;
+import com.fitness.add_meal_service.repository.UserDailyMealsRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the weekly and monthly nutrition rollups in step with user_daily_meals. Every day write
+ * goes through {@link #track}, which applies the day's change to its week and month in the same
+ * transaction, so trend reads never have to touch the daily rows.
+ */
+@Service
+public class NutritionRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(NutritionRollupService.class);
+    private static final int REBUILD_USER_BATCH = 500;
+
+    private final NutritionRollupRepository rollups;
+    private final UserDailyMealsRepository days;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean rebuildOnStartup;
+
+    public NutritionRollupService(
+            NutritionRollupRepository rollups,
+            UserDailyMealsRepository days,
+            TransactionTemplate transactionTemplate,
+            @Value("${meals.rollups.rebuild-on-startup:false}") boolean rebuildOnStartup
+    ) {
+        this.rollups = rollups;
+        this.days = days;
+        this.transactionTemplate = transactionTemplate;
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    /** What a tracked write returns, and the day's totals once it is written. */
+    public record DayWrite<T>(T result, DayTotals after) {
+    }
+
+    /**
+     * Runs a write to the user's day, moves the day's week and month by whatever it changed and
+     * takes the user's next change sequence number, which the write stamps on the day. Must be
+     * called inside the write's transaction. The day row is locked (created empty if missing)
+     * and then read, so concurrent writes to the day apply their deltas one after the other.
+     *
+     * The write gets the locked day (calories, macros and version, no slot JSON) and reports the
+     * totals it leaves, so a write costs five statements: lock, read, sequence, the write itself
+     * and one rollup update, or two rollup upserts the first time the week or month is written.
+     */
+    public <T> T track(Long userId, LocalDate mealDate, Function<UserDailyMeals, DayWrite<T>> write) {
+        days.lockDay(userId, mealDate);
+        UserDailyMeals stored = days.findForUpdate(userId, mealDate).orElseThrow();
+        DayTotals before = DayTotals.of(stored);
+        days.takeChangeSeq(userId, 1);
+        DayWrite<T> written = write.apply(stored);
+        rollups.applyDelta(userId, mealDate, before, written.after());
+        return written.result();
+    }
+
+    /**
+     * {@link #track} for writes that cannot tell the day's totals themselves, such as item edits
+     * computed in SQL: the day is read again after the write, one statement more.
+     */
+    public <T> T track(Long userId, LocalDate mealDate, Supplier<T> write) {
+        return track(userId, mealDate, stored -> new DayWrite<>(write.get(), rollups.findDayTotals(userId, mealDate)));
+    }
+
+    /**
+     * {@link #track} for one write to several of the user's days: the days are locked in date
+     * order and their totals read and compared with one statement or batch each, and the write
+     * numbers them in date order.
+     */
+    public <T> T trackAll(Long userId, Collection<LocalDate> mealDates, Supplier<T> write) {
+        days.lockDays(userId, mealDates);
+        Map<LocalDate, DayTotals> before = rollups.findDayTotals(userId, mealDates);
+        days.takeChangeSeq(userId, new TreeSet<>(mealDates).size());
+        T result = write.get();
+        rollups.applyDeltas(userId, before, rollups.findDayTotals(userId, mealDates));
+        return result;
+    }
+
+    /** Weeks and months of the user that start within {@code [from, to]} or contain {@code from}. */
+    public NutritionRollupsResponse find(Long userId, LocalDate from, LocalDate to) {
+        return new NutritionRollupsResponse(
+                rollups.find(Period.WEEK, userId, Period.WEEK.start(from), to),
+                rollups.find(Period.MONTH, userId, Period.MONTH.start(from), to));
+    }
+
+    /** Recomputes one user's rollups from their stored days, in its own transaction. */
+    public void rebuildUser(Long userId) {
+        transactionTemplate.executeWithoutResult(status -> rollups.rebuildUser(userId));
+    }
+
+    /**
+     * Recomputes every user's rollups, one user per transaction so day writes are only held up for
+     * the user being rebuilt. Returns the number of users rebuilt.
+     */
+    public int rebuildAll() {
+        int count = 0;
+        long lastUserId = 0L;
+        List<Long> batch;
+        do {
+            batch = rollups.findUserIdsAfter(lastUserId, REBUILD_USER_BATCH);
+            for (Long userId : batch) {
+                rebuildUser(userId);
+                lastUserId = userId;
+            }
+            count += batch.size();
+        } while (!batch.isEmpty());
+        return count;
+    }
+
+    /** Backfill for {@code meals.rollups.rebuild-on-startup}, e.g. after days were written outside this service. */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (!rebuildOnStartup) return;
+        long start = System.nanoTime();
+        int users = rebuildAll();
+        log.info("Rebuilt nutrition rollups for {} users in {} ms", users, (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -0,0 +1,102 @@
+package com.fitness.add_meal_service.service;
+
+import com.fitness.add_meal_service.dto.UserDailyMealsResponse;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Read-through cache of GET /date responses keyed by (user, day), bounded by an estimate of the
+ * bytes it holds ({@code meals.day-cache.max-size}) and evicted by Caffeine's W-TinyLFU policy.
+ *
+ * Writes in this service replace the cached day after they commit ({@link #put}) or drop it
+ * ({@link #invalidate}); {@code ttl} only bounds how long a write made elsewhere can go unseen.
+ * Hit/miss/eviction meters are published as {@code cache.*} with {@code cache=meal-day}.
+ * With {@code meals.day-cache.enabled=false} every read goes to the database.
+ */
+@Component
+public class UserDailyMealsCache {
+
+    // object headers, boxed numbers, dates and the seven macro totals of one response
+    private static final int RESPONSE_OVERHEAD_BYTES = 1024;
+
+    private final Cache<Key, UserDailyMealsResponse> cache;
+
+    public UserDailyMealsCache(
+            MeterRegistry meterRegistry,
+            @Value("${meals.day-cache.enabled:true}") boolean enabled,
+            @Value("${meals.day-cache.max-size:64MB}") DataSize maxSize,
+            @Value("${meals.day-cache.ttl:30m}") Duration ttl
+    ) {
+        if (!enabled) {
+            this.cache = null;
+            return;
+        }
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((Key key, UserDailyMealsResponse day) -> weigh(day))
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "meal-day");
+    }
+
+    public boolean isEnabled() {
+        return cache != null;
+    }
+
+    /** The cached day, or the loader's result (cached unless null). */
+    public Optional<UserDailyMealsResponse> get(Long userId, LocalDate mealDate, Supplier<UserDailyMealsResponse> loader) {
+        if (cache == null) return Optional.ofNullable(loader.get());
+        return Optional.ofNullable(cache.get(new Key(userId, mealDate), key -> loader.get()));
+    }
+
+    /** The cached day, without loading it on a miss. */
+    public Optional<UserDailyMealsResponse> getIfPresent(Long userId, LocalDate mealDate) {
+        if (cache == null) return Optional.empty();
+        return Optional.ofNullable(cache.getIfPresent(new Key(userId, mealDate)));
+    }
+
+    /**
+     * Stores a day as read back after a committed write. Two writers can finish in either order,
+     * so an entry is only replaced by a day of the same or a later version.
+     */
+    public void put(UserDailyMealsResponse day) {
+        if (cache == null) return;
+        cache.asMap().compute(new Key(day.getUserId(), day.getMealDate()), (key, cached) ->
+                cached == null || cached.getVersion() <= day.getVersion() ? day : cached);
+    }
+
+    /**
+     * Drops the day after a write that did not read it back. A load that started before the write
+     * committed finishes before the entry is removed, so it cannot leave the old day behind.
+     */
+    public void invalidate(Long userId, LocalDate mealDate) {
+        if (cache == null) return;
+        cache.invalidate(new Key(userId, mealDate));
+    }
+
+    // strings are counted as one byte per char (compact Latin-1), which slot JSON almost always is
+    private static int weigh(UserDailyMealsResponse day) {
+        long bytes = RESPONSE_OVERHEAD_BYTES;
+        bytes += length(day.getBreakfast()) + length(day.getPostBreakfast()) + length(day.getLunch());
+        bytes += length(day.getPostLunch()) + length(day.getPreWorkout()) + length(day.getDinner());
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static int length(String json) {
+        return json == null ? 0 : json.length();
+    }
+
+    private record Key(Long userId, LocalDate mealDate) {
+    }
+}
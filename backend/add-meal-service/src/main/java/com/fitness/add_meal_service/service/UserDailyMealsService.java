@@ -1,77 +1,361 @@
 package com.fitness.add_meal_service.service;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fitness.add_meal_service.dto.MealChangesResponse;
+import com.fitness.add_meal_service.dto.MealDayPushResult;
+import com.fitness.add_meal_service.dto.MealDayVersion;
+import com.fitness.add_meal_service.dto.MealDayWriteResult;
 import com.fitness.add_meal_service.dto.MealItemDto;
 import com.fitness.add_meal_service.dto.MealSlotDto;
+import com.fitness.add_meal_service.dto.MealSlotTotals;
+import com.fitness.add_meal_service.dto.NutritionRollupsResponse;
+import com.fitness.add_meal_service.dto.UpdateMealsRequest;
+import com.fitness.add_meal_service.dto.UserDailyCaloriesResponse;
+import com.fitness.add_meal_service.dto.UserDailyMealsResponse;
+import com.fitness.add_meal_service.model.Macro;
+import com.fitness.add_meal_service.model.MacroTotals;
+import com.fitness.add_meal_service.model.MealSlot;
 import com.fitness.add_meal_service.model.UserDailyMeals;
+import com.fitness.add_meal_service.repository.NutritionRollupRepository.DayTotals;
 import com.fitness.add_meal_service.repository.UserDailyMealsRepository;
+import com.fitness.add_meal_service.service.NutritionRollupService.DayWrite;
 import org.springframework.stereotype.Service;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Supplier;
 
 @Service
 public class UserDailyMealsService {
 
+    // concurrent first inserts of a day can deadlock on the unique key's gap locks; InnoDB rolls one back
+    private static final int MAX_WRITE_ATTEMPTS = 3;
+
     private final UserDailyMealsRepository repo;
     private final ObjectMapper objectMapper;
-
-    public UserDailyMealsService(UserDailyMealsRepository repo, ObjectMapper objectMapper) {
+    private final TransactionTemplate transactionTemplate;
+    private final UserDailyMealsWriteBuffer writeBuffer;
+    private final NutritionRollupService rollups;
+    private final UserDailyMealsCache dayCache;
+
+    public UserDailyMealsService(
+            UserDailyMealsRepository repo,
+            ObjectMapper objectMapper,
+            TransactionTemplate transactionTemplate,
+            UserDailyMealsWriteBuffer writeBuffer,
+            NutritionRollupService rollups,
+            UserDailyMealsCache dayCache
+    ) {
         this.repo = repo;
         this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.writeBuffer = writeBuffer;
+        this.rollups = rollups;
+        this.dayCache = dayCache;
     }
 
-    public UserDailyMeals upsertBulk(Long userId, LocalDate mealDate, List<MealSlotDto> meals) {
-        UserDailyMeals row = repo.findByUserIdAndMealDate(userId, mealDate).orElseGet(UserDailyMeals::new);
-        row.setUserId(userId);
-        row.setMealDate(mealDate);
-
-        // bulk sync from client omits empty slots, so we must clear everything first
-        clearAllSlots(row);
+    /**
+     * Replaces the whole day with the given slots and returns the day's total calories, which
+     * are the built row's own, so nothing is read back. Every write below also updates the day's
+     * week and month rollups in the same transaction, and replaces or drops the cached day once
+     * it has committed. Unbuffered, a day or slot write takes the five statements of
+     * {@link NutritionRollupService#track}, the day upsert being one of them.
+     */
+    public double upsertBulk(Long userId, LocalDate mealDate, List<MealSlotDto> meals) {
+        UserDailyMeals row = buildDay(userId, mealDate, meals);
+        if (writeBuffer.isEnabled()) {
+            return writeBuffer.replaceDay(row);
+        }
+        // a day still being flushed at shutdown goes first, so it cannot land on top of this write
+        writeBuffer.flushDay(userId, mealDate);
+        retryOnDeadlock(() -> transactionTemplate.execute(status -> rollups.track(userId, mealDate, stored -> {
+            repo.upsertDay(row);
+            return new DayWrite<>(null, DayTotals.of(row));
+        })));
+        dayCache.invalidate(userId, mealDate);
+        return safeDouble(row.getTotalCalories());
+    }
 
-        if (meals != null) {
-            for (MealSlotDto m : meals) {
-                if (m == null) continue;
-                applySlot(row, m.getMealType(), m.getItems(), safeDouble(m.getTotalCalories()));
+    /**
+     * Applies many update-meals writes (each a bulk day or a single slot, with a valid mealDate)
+     * in one transaction and returns every written day, in date order. The days are locked and
+     * loaded with one query, changed in memory in request order and written back as one JDBC
+     * batch, instead of a transaction per write. Writes to unknown meal types are ignored.
+     */
+    public List<MealDayWriteResult> upsertBatch(Long userId, List<UpdateMealsRequest> writes) {
+        List<UpdateMealsRequest> known = new ArrayList<>();
+        Set<LocalDate> dates = new TreeSet<>();
+        for (UpdateMealsRequest write : writes) {
+            if (write.getMeals() == null && MealSlot.from(write.getMealType()) == null) continue;
+            known.add(write);
+            dates.add(LocalDate.parse(write.getMealDate().trim()));
+        }
+        if (known.isEmpty()) return List.of();
+
+        for (LocalDate mealDate : dates) writeBuffer.flushDay(userId, mealDate);
+        List<UserDailyMealsResponse> written = retryOnDeadlock(() -> transactionTemplate.execute(status -> rollups.trackAll(userId, dates, () -> {
+            Map<LocalDate, UserDailyMeals> days = new HashMap<>();
+            for (UserDailyMeals row : repo.findDays(userId, dates)) days.put(row.getMealDate(), row);
+            for (UpdateMealsRequest write : known) {
+                LocalDate mealDate = LocalDate.parse(write.getMealDate().trim());
+                if (write.getMeals() != null) {
+                    days.put(mealDate, buildDay(userId, mealDate, write.getMeals()));
+                    continue;
+                }
+                UserDailyMeals row = days.get(mealDate);
+                MealSlot slot = MealSlot.from(write.getMealType());
+                double calories = safeDouble(write.getTotalCalories());
+                slot.set(row, toJson(slot, write.getItems(), calories), calories);
+                slot.setMacros(row, macrosOf(write.getItems()));
+                recalcTotals(row);
             }
+            repo.upsertDays(days.values());
+            return repo.findDays(userId, dates).stream().map(this::toResponse).toList();
+        })));
+
+        List<MealDayWriteResult> results = new ArrayList<>();
+        for (UserDailyMealsResponse day : written) {
+            dayCache.put(day);
+            results.add(new MealDayWriteResult(day.getMealDate().toString(), day.getVersion(), safeDouble(day.getTotalCalories())));
         }
+        return results;
+    }
 
-        recalcTotalCalories(row);
-        return repo.save(row);
+    /**
+     * Copies the source day's {@code slots} onto every target day inside the database, so the
+     * slot JSON never travels. Slots empty on the source day keep what the targets have. Returns
+     * the number of days written: 0, and nothing written, if the source day does not exist.
+     */
+    public int copyDay(Long userId, LocalDate sourceDate, Set<LocalDate> targetDates, Set<MealSlot> slots) {
+        writeBuffer.flushDay(userId, sourceDate);
+        for (LocalDate mealDate : targetDates) writeBuffer.flushDay(userId, mealDate);
+        int copied = retryOnDeadlock(() -> transactionTemplate.execute(status -> rollups.trackAll(userId, targetDates, () -> {
+            if (repo.copyDay(userId, sourceDate, targetDates, slots) > 0) return targetDates.size();
+            status.setRollbackOnly(); // don't keep days created just to be locked
+            return 0;
+        })));
+        if (copied > 0) {
+            for (LocalDate mealDate : targetDates) dayCache.invalidate(userId, mealDate);
+        }
+        return copied;
     }
 
-    public UserDailyMeals upsertSingle(Long userId, LocalDate mealDate, String mealType, List<MealItemDto> items, Double totalCalories) {
-        UserDailyMeals row = repo.findByUserIdAndMealDate(userId, mealDate).orElseGet(UserDailyMeals::new);
+    /**
+     * Stores one day pushed by an offline client, bypassing the write buffer so the version check
+     * and the write happen under the day's lock. A day no longer at {@code baseVersion} is left
+     * as stored and reported as a conflict with its current version. The version is checked on
+     * the day {@link NutritionRollupService#track} has already locked and read, and a push bumps
+     * it by one, so nothing is read back.
+     */
+    public MealDayPushResult pushDay(Long userId, LocalDate mealDate, List<MealSlotDto> meals, Long baseVersion) {
+        UserDailyMeals row = buildDay(userId, mealDate, meals);
+        writeBuffer.flushDay(userId, mealDate);
+        PushOutcome outcome = retryOnDeadlock(() -> transactionTemplate.execute(status -> rollups.track(userId, mealDate, stored -> {
+            if (baseVersion != null && stored.getVersion().longValue() != baseVersion.longValue()) {
+                status.setRollbackOnly();
+                return new DayWrite<>(new PushOutcome(true, stored.getVersion(), safeDouble(stored.getTotalCalories())),
+                        DayTotals.of(stored));
+            }
+            repo.upsertDay(row);
+            return new DayWrite<>(new PushOutcome(false, stored.getVersion() + 1, safeDouble(row.getTotalCalories())),
+                    DayTotals.of(row));
+        })));
+        if (!outcome.conflict()) dayCache.invalidate(userId, mealDate);
+        return new MealDayPushResult(mealDate.toString(), outcome.conflict(), outcome.version(), outcome.totalCalories());
+    }
+
+    /**
+     * Up to {@code limit} days of the user written after change {@code since}, in the order they
+     * were written, with the cursor to continue from. Buffered writes are flushed first so they
+     * get their place in the sequence.
+     */
+    public MealChangesResponse getChanges(Long userId, long since, int limit) {
+        writeBuffer.flushUser(userId);
+        List<UserDailyMeals> rows = repo.findChangedSince(userId, since, limit + 1);
+        boolean hasMore = rows.size() > limit;
+        if (hasMore) rows = rows.subList(0, limit);
+        long cursor = rows.isEmpty() ? since : rows.get(rows.size() - 1).getChangeSeq();
+        return new MealChangesResponse(cursor, hasMore, rows.stream().map(this::toResponse).toList());
+    }
+
+    /**
+     * Writes one slot and returns the day's total calories afterwards, summed from the written
+     * slot and the other slots of the locked day rather than read back. Unbuffered, this is the
+     * same five statements as {@link #upsertBulk}.
+     */
+    public double upsertSingle(Long userId, LocalDate mealDate, String mealType, List<MealItemDto> items, Double totalCalories) {
+        MealSlot slot = MealSlot.from(mealType);
+        if (slot == null) {
+            // unknown meal types are ignored
+            return getByUserAndDate(userId, mealDate).map(UserDailyMeals::getTotalCalories).map(this::safeDouble).orElse(0d);
+        }
+
+        double calories = safeDouble(totalCalories);
+        String json = toJson(slot, items, calories);
+        MacroTotals macros = macrosOf(items);
+        if (writeBuffer.isEnabled()) {
+            return writeBuffer.writeSlot(userId, mealDate, slot, json, calories, macros);
+        }
+        writeBuffer.flushDay(userId, mealDate);
+
+        UserDailyMeals row = new UserDailyMeals();
         row.setUserId(userId);
         row.setMealDate(mealDate);
+        slot.set(row, json, calories);
+        slot.setMacros(row, macros);
+        DayTotals after = retryOnDeadlock(() -> transactionTemplate.execute(status -> rollups.track(userId, mealDate, stored -> {
+            repo.upsertSlots(row, EnumSet.of(slot));
+            DayTotals totals = DayTotals.withSlots(stored, row, EnumSet.of(slot));
+            return new DayWrite<>(totals, totals);
+        })));
+        dayCache.invalidate(userId, mealDate);
+        return after.calories();
+    }
 
-        applySlot(row, mealType, items, safeDouble(totalCalories));
-        recalcTotalCalories(row);
+    /**
+     * Appends one item to a slot with a partial JSON update; the slot and day calories and macros
+     * grow by the item's {@code macros}.
+     */
+    public MealSlotTotals addItem(Long userId, LocalDate mealDate, MealSlot slot, MealItemDto item) {
+        String itemJson = writeItem(item);
+        double calories = itemCalories(item);
+        MacroTotals macros = macrosOf(List.of(item));
+        writeBuffer.flushDay(userId, mealDate);
+        MealSlotTotals totals = retryOnDeadlock(() -> transactionTemplate.execute(status -> rollups.track(userId, mealDate, () -> {
+            repo.appendItem(userId, mealDate, slot, itemJson, calories, macros);
+            return repo.findSlotTotals(userId, mealDate, slot).orElseThrow();
+        })));
+        dayCache.invalidate(userId, mealDate);
+        return totals;
+    }
 
-        return repo.save(row);
+    /** Replaces the item at {@code index}; empty if the slot has no such item. */
+    public Optional<MealSlotTotals> replaceItem(Long userId, LocalDate mealDate, MealSlot slot, int index, MealItemDto item) {
+        String itemJson = writeItem(item);
+        double calories = itemCalories(item);
+        MacroTotals macros = macrosOf(List.of(item));
+        writeBuffer.flushDay(userId, mealDate);
+        Optional<MealSlotTotals> totals = retryOnDeadlock(() -> transactionTemplate.execute(status -> rollups.track(userId, mealDate, () -> {
+            if (repo.replaceItem(userId, mealDate, slot, index, itemJson, calories, macros)) {
+                return repo.findSlotTotals(userId, mealDate, slot);
+            }
+            status.setRollbackOnly(); // don't keep a day created just to be locked
+            return Optional.<MealSlotTotals>empty();
+        })));
+        if (totals.isPresent()) dayCache.invalidate(userId, mealDate);
+        return totals;
+    }
+
+    /** Removes the item at {@code index}; empty if the slot has no such item. */
+    public Optional<MealSlotTotals> removeItem(Long userId, LocalDate mealDate, MealSlot slot, int index) {
+        writeBuffer.flushDay(userId, mealDate);
+        Optional<MealSlotTotals> totals = retryOnDeadlock(() -> transactionTemplate.execute(status -> rollups.track(userId, mealDate, () -> {
+            if (repo.removeItem(userId, mealDate, slot, index)) {
+                return repo.findSlotTotals(userId, mealDate, slot);
+            }
+            status.setRollbackOnly(); // don't keep a day created just to be locked
+            return Optional.<MealSlotTotals>empty();
+        })));
+        if (totals.isPresent()) dayCache.invalidate(userId, mealDate);
+        return totals;
     }
 
     public Optional<UserDailyMeals> getByUserAndDate(Long userId, LocalDate mealDate) {
+        Optional<UserDailyMeals> buffered = writeBuffer.get(userId, mealDate);
+        if (buffered.isPresent()) return buffered;
         return repo.findByUserIdAndMealDate(userId, mealDate);
     }
 
-    public com.fitness.add_meal_service.dto.UserDailyMealsResponse toResponse(UserDailyMeals row) {
-        com.fitness.add_meal_service.dto.UserDailyMealsResponse res = new com.fitness.add_meal_service.dto.UserDailyMealsResponse();
+    /**
+     * The day as GET /date returns it: unflushed buffered writes first, then the day cache, then the
+     * database. A buffered day has no version, since its state has not been stored yet.
+     */
+    public Optional<UserDailyMealsResponse> getResponse(Long userId, LocalDate mealDate) {
+        Optional<UserDailyMeals> buffered = writeBuffer.get(userId, mealDate);
+        if (buffered.isPresent()) {
+            UserDailyMealsResponse res = toResponse(buffered.get());
+            res.setVersion(null);
+            return Optional.of(res);
+        }
+        return dayCache.get(userId, mealDate,
+                () -> repo.findByUserIdAndMealDate(userId, mealDate).map(this::toResponse).orElse(null));
+    }
+
+    /**
+     * The stored day's version, from the day cache or a query that reads no slot JSON. Empty if the
+     * day does not exist or has buffered writes, in which case only a full read can answer.
+     */
+    public Optional<MealDayVersion> findVersion(Long userId, LocalDate mealDate) {
+        if (writeBuffer.get(userId, mealDate).isPresent()) return Optional.empty();
+        Optional<UserDailyMealsResponse> cached = dayCache.getIfPresent(userId, mealDate);
+        if (cached.isPresent()) {
+            UserDailyMealsResponse day = cached.get();
+            return Optional.of(new MealDayVersion(day.getId(), day.getVersion(), day.getUpdatedAt()));
+        }
+        return repo.findVersion(userId, mealDate);
+    }
+
+    /**
+     * Writes the user's days in {@code [from, to]} to {@code out} as they come off the database
+     * cursor, either as one JSON array or as newline-delimited JSON. With {@code caloriesOnly} each
+     * day is a {@link UserDailyCaloriesResponse} and the slot JSON is never read.
+     */
+    public void streamRange(Long userId, LocalDate from, LocalDate to, boolean caloriesOnly, boolean ndjson, OutputStream out) throws IOException {
+        writeBuffer.flushRange(userId, from, to);
+
+        // flush only when the generator's buffer fills, not once per day
+        ObjectWriter writer = objectMapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.setRootValueSeparator(null);
+            if (!ndjson) generator.writeStartArray();
+            repo.streamRange(userId, from, to, !caloriesOnly, row -> {
+                try {
+                    writer.writeValue(generator, caloriesOnly ? toCaloriesResponse(row) : toResponse(row));
+                    if (ndjson) generator.writeRaw('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            if (!ndjson) generator.writeEndArray();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /** Weekly and monthly totals covering {@code [from, to]}, read from the rollup tables. */
+    public NutritionRollupsResponse getRollups(Long userId, LocalDate from, LocalDate to) {
+        writeBuffer.flushRange(userId, from, to);
+        return rollups.find(userId, from, to);
+    }
+
+    public UserDailyMealsResponse toResponse(UserDailyMeals row) {
+        UserDailyMealsResponse res = new UserDailyMealsResponse();
         res.setId(row.getId());
         res.setUserId(row.getUserId());
         res.setMealDate(row.getMealDate());
 
-        res.setBreakfast(parseJson(row.getBreakfast()));
-        res.setPostBreakfast(parseJson(row.getPostBreakfast()));
-        res.setLunch(parseJson(row.getLunch()));
-        res.setPostLunch(parseJson(row.getPostLunch()));
-        res.setPreWorkout(parseJson(row.getPreWorkout()));
-        res.setDinner(parseJson(row.getDinner()));
+        res.setBreakfast(rawJson(row.getBreakfast()));
+        res.setPostBreakfast(rawJson(row.getPostBreakfast()));
+        res.setLunch(rawJson(row.getLunch()));
+        res.setPostLunch(rawJson(row.getPostLunch()));
+        res.setPreWorkout(rawJson(row.getPreWorkout()));
+        res.setDinner(rawJson(row.getDinner()));
 
         res.setBreakfastCalories(row.getBreakfastCalories());
         res.setPostBreakfastCalories(row.getPostBreakfastCalories());
@@ -81,20 +365,56 @@ public class UserDailyMealsService {
         res.setDinnerCalories(row.getDinnerCalories());
         res.setTotalCalories(row.getTotalCalories());
 
+        res.setBreakfastMacros(row.getBreakfastMacros());
+        res.setPostBreakfastMacros(row.getPostBreakfastMacros());
+        res.setLunchMacros(row.getLunchMacros());
+        res.setPostLunchMacros(row.getPostLunchMacros());
+        res.setPreWorkoutMacros(row.getPreWorkoutMacros());
+        res.setDinnerMacros(row.getDinnerMacros());
+        res.setTotalMacros(row.getTotalMacros());
+
+        res.setVersion(row.getVersion());
         res.setCreatedAt(row.getCreatedAt());
         res.setUpdatedAt(row.getUpdatedAt());
         return res;
     }
 
-    private Map<String, Object> parseJson(String json) {
-        if (json == null || json.isBlank()) {
-            return null;
-        }
-        try {
-            return objectMapper.readValue(json, new TypeReference<Map<String, Object>>() {});
-        } catch (Exception e) {
-            throw new RuntimeException("Failed to parse meal slot JSON", e);
+    private UserDailyCaloriesResponse toCaloriesResponse(UserDailyMeals row) {
+        UserDailyCaloriesResponse res = new UserDailyCaloriesResponse();
+        res.setMealDate(row.getMealDate());
+        res.setBreakfastCalories(row.getBreakfastCalories());
+        res.setPostBreakfastCalories(row.getPostBreakfastCalories());
+        res.setLunchCalories(row.getLunchCalories());
+        res.setPostLunchCalories(row.getPostLunchCalories());
+        res.setPreWorkoutCalories(row.getPreWorkoutCalories());
+        res.setDinnerCalories(row.getDinnerCalories());
+        res.setTotalCalories(row.getTotalCalories());
+        return res;
+    }
+
+    // stored slot JSON goes into the response untouched; blank counts as an empty slot
+    private String rawJson(String json) {
+        return json == null || json.isBlank() ? null : json;
+    }
+
+    // the day a bulk write stores: the given slots, every other slot empty
+    private UserDailyMeals buildDay(Long userId, LocalDate mealDate, List<MealSlotDto> meals) {
+        UserDailyMeals row = new UserDailyMeals();
+        row.setUserId(userId);
+        row.setMealDate(mealDate);
+
+        // bulk sync from client omits empty slots, so we must clear everything first
+        clearAllSlots(row);
+
+        if (meals != null) {
+            for (MealSlotDto m : meals) {
+                if (m == null) continue;
+                applySlot(row, m.getMealType(), m.getItems(), safeDouble(m.getTotalCalories()));
+            }
         }
+
+        recalcTotals(row);
+        return row;
     }
 
     private void clearAllSlots(UserDailyMeals row) {
@@ -112,42 +432,20 @@ public class UserDailyMealsService {
         row.setPreWorkoutCalories(0d);
         row.setDinnerCalories(0d);
         row.setTotalCalories(0d);
+
+        for (MealSlot slot : MealSlot.values()) slot.setMacros(row, new MacroTotals());
+        row.setTotalMacros(new MacroTotals());
     }
 
     private void applySlot(UserDailyMeals row, String mealTypeRaw, List<MealItemDto> items, Double totalCalories) {
         MealSlot slot = MealSlot.from(mealTypeRaw);
         if (slot == null) return; // ignore unknown meal types safely
 
-        String json = toJson(slot, items, totalCalories);
-        switch (slot) {
-            case BREAKFAST -> {
-                row.setBreakfast(json);
-                row.setBreakfastCalories(totalCalories);
-            }
-            case POST_BREAKFAST -> {
-                row.setPostBreakfast(json);
-                row.setPostBreakfastCalories(totalCalories);
-            }
-            case LUNCH -> {
-                row.setLunch(json);
-                row.setLunchCalories(totalCalories);
-            }
-            case POST_LUNCH -> {
-                row.setPostLunch(json);
-                row.setPostLunchCalories(totalCalories);
-            }
-            case PRE_WORKOUT -> {
-                row.setPreWorkout(json);
-                row.setPreWorkoutCalories(totalCalories);
-            }
-            case DINNER -> {
-                row.setDinner(json);
-                row.setDinnerCalories(totalCalories);
-            }
-        }
+        slot.set(row, toJson(slot, items, totalCalories), totalCalories);
+        slot.setMacros(row, macrosOf(items));
     }
 
-    private void recalcTotalCalories(UserDailyMeals row) {
+    private void recalcTotals(UserDailyMeals row) {
         double sum = 0d;
         sum += safeDouble(row.getBreakfastCalories());
         sum += safeDouble(row.getPostBreakfastCalories());
@@ -156,15 +454,60 @@ public class UserDailyMealsService {
         sum += safeDouble(row.getPreWorkoutCalories());
         sum += safeDouble(row.getDinnerCalories());
         row.setTotalCalories(sum);
+
+        MacroTotals macros = new MacroTotals();
+        for (MealSlot slot : MealSlot.values()) macros.add(slot.macros(row));
+        row.setTotalMacros(macros);
+    }
+
+    /** Sums the items' {@code macros}; items or macros that are missing count as zero. */
+    static MacroTotals macrosOf(List<MealItemDto> items) {
+        MacroTotals totals = new MacroTotals();
+        if (items == null) return totals;
+        for (MealItemDto item : items) {
+            if (item == null || item.getMacros() == null) continue;
+            totals.add(Macro.PROTEIN, item.getMacros().getProtein());
+            totals.add(Macro.CARBS, item.getMacros().getCarbs());
+            totals.add(Macro.FAT, item.getMacros().getFat());
+            totals.add(Macro.FIBER, item.getMacros().getFiber());
+        }
+        return totals;
+    }
+
+    // the day's version and total calories after a push, or as stored when the push conflicted
+    private record PushOutcome(boolean conflict, long version, double totalCalories) {
+    }
+
+    // also used by the write buffer's flushes
+    static <T> T retryOnDeadlock(Supplier<T> write) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return write.get();
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt == MAX_WRITE_ATTEMPTS) throw e;
+            }
+        }
     }
 
     private Double safeDouble(Double d) {
         return d == null ? 0d : d;
     }
 
+    private double itemCalories(MealItemDto item) {
+        return item.getMacros() == null ? 0d : safeDouble(item.getMacros().getCalories());
+    }
+
+    private String writeItem(MealItemDto item) {
+        try {
+            return objectMapper.writeValueAsString(item);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize meal item JSON", e);
+        }
+    }
+
     private String toJson(MealSlot slot, List<MealItemDto> items, Double totalCalories) {
         Map<String, Object> payload = new HashMap<>();
-        payload.put("mealType", slot.jsonKey);
+        payload.put("mealType", slot.jsonKey());
         payload.put("items", items == null ? List.of() : items);
         payload.put("totalCalories", safeDouble(totalCalories));
 
@@ -174,38 +517,4 @@ public class UserDailyMealsService {
             throw new RuntimeException("Failed to serialize meal slot JSON", e);
         }
     }
-
-    private enum MealSlot {
-        BREAKFAST("breakfast"),
-        POST_BREAKFAST("postBreakfast"),
-        LUNCH("lunch"),
-        POST_LUNCH("postLunch"),
-        PRE_WORKOUT("preWorkout"),
-        DINNER("dinner");
-
-        private final String jsonKey;
-
-        MealSlot(String jsonKey) {
-            this.jsonKey = jsonKey;
-        }
-
-        static MealSlot from(String raw) {
-            if (raw == null) return null;
-            String s = raw.trim();
-            if (s.isEmpty()) return null;
-
-            // accept both camelCase and snake_case from clients
-            return switch (s) {
-                case "breakfast" -> BREAKFAST;
-                case "postBreakfast", "post_breakfast" -> POST_BREAKFAST;
-                case "lunch" -> LUNCH;
-                case "postLunch", "post_lunch" -> POST_LUNCH;
-                case "preWorkout", "pre_workout" -> PRE_WORKOUT;
-                case "dinner" -> DINNER;
-                default -> null;
-            };
-        }
-    }
 }
-
-
@@ -0,0 +1,342 @@
+package com.fitness.add_meal_service.service;
+
+import com.fitness.add_meal_service.model.MacroTotals;
+import com.fitness.add_meal_service.model.MealSlot;
+import com.fitness.add_meal_service.model.UserDailyMeals;
+import com.fitness.add_meal_service.repository.NutritionRollupRepository.DayTotals;
+import com.fitness.add_meal_service.repository.UserDailyMealsRepository;
+import com.fitness.add_meal_service.service.NutritionRollupService.DayWrite;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Opt-in write-behind for user_daily_meals ({@code meals.write-behind.enabled}).
+ *
+ * Writes for a (user, day) are applied to an in-memory copy of the row and flushed as one upsert
+ * {@code window} after the first of them, or as soon as {@code max-updates} have piled up. Later
+ * writes to a slot replace earlier ones; a bulk write replaces the whole day. Until the flush,
+ * {@link #get} returns the buffered copy so reads see every accepted write. Flushes run on a
+ * fixed pool of {@code flush-threads}; a failed flush is retried a window later, at most
+ * {@code max-retries} times and not at all for errors retrying cannot fix (bad data), after which
+ * the day's buffered writes are dropped and logged. Each flush also retries deadlocks at once, as
+ * direct writes do. Everything still pending is flushed when the application shuts down, retrying
+ * failed days until the shutdown timeout unless retrying cannot fix them. Writes accepted in the
+ * last window before a crash are lost, which is the trade for the saved round trips.
+ *
+ * {@link #flushDay}, {@link #flushUser} and {@link #flushRange} throw if a flush fails, so a caller
+ * about to write the stored row directly aborts instead of being overwritten by a later retry.
+ */
+@Component
+public class UserDailyMealsWriteBuffer {
+
+    private static final Logger log = LoggerFactory.getLogger(UserDailyMealsWriteBuffer.class);
+
+    private static final long SHUTDOWN_TIMEOUT_MILLIS = TimeUnit.SECONDS.toMillis(30);
+    private static final long SHUTDOWN_RETRY_DELAY_MILLIS = 200;
+
+    private final UserDailyMealsRepository repo;
+    private final NutritionRollupService rollups;
+    private final TransactionTemplate transactionTemplate;
+    private final UserDailyMealsCache dayCache;
+    private final boolean enabled;
+    private final long windowMillis;
+    private final int maxUpdates;
+    private final int maxRetries;
+    private final ScheduledThreadPoolExecutor flusher;
+
+    private final Map<Key, PendingDay> pending = new ConcurrentHashMap<>();
+    private final Counter bufferedWrites;
+    private final Counter flushedWrites;
+    private volatile boolean closed;
+
+    public UserDailyMealsWriteBuffer(
+            UserDailyMealsRepository repo,
+            NutritionRollupService rollups,
+            TransactionTemplate transactionTemplate,
+            UserDailyMealsCache dayCache,
+            MeterRegistry meterRegistry,
+            @Value("${meals.write-behind.enabled:false}") boolean enabled,
+            @Value("${meals.write-behind.window:3s}") Duration window,
+            @Value("${meals.write-behind.max-updates:20}") int maxUpdates,
+            @Value("${meals.write-behind.flush-threads:2}") int flushThreads,
+            @Value("${meals.write-behind.max-retries:5}") int maxRetries
+    ) {
+        this.repo = repo;
+        this.rollups = rollups;
+        this.transactionTemplate = transactionTemplate;
+        this.dayCache = dayCache;
+        this.enabled = enabled;
+        this.windowMillis = window.toMillis();
+        this.maxUpdates = maxUpdates;
+        this.maxRetries = maxRetries;
+        this.flusher = enabled
+                ? new ScheduledThreadPoolExecutor(flushThreads, new CustomizableThreadFactory("meal-write-flush-"))
+                : null;
+        if (flusher != null) {
+            flusher.setRemoveOnCancelPolicy(true);
+            flusher.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        }
+
+        this.bufferedWrites = Counter.builder("meals.write_buffer.writes")
+                .description("update-meals writes accepted into the buffer")
+                .register(meterRegistry);
+        this.flushedWrites = Counter.builder("meals.write_buffer.flushes")
+                .description("upserts issued to user_daily_meals by the buffer")
+                .register(meterRegistry);
+        Gauge.builder("meals.write_buffer.pending", pending, Map::size)
+                .description("user days with unflushed writes")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return enabled && !closed;
+    }
+
+    /** Buffers a bulk write that replaces the whole day; returns the day's total calories. */
+    public double replaceDay(UserDailyMeals row) {
+        return apply(row.getUserId(), row.getMealDate(), true, day -> {
+            UserDailyMeals view = copy(row);
+            if (day.view != null) {
+                view.setId(day.view.getId());
+                view.setCreatedAt(day.view.getCreatedAt());
+            }
+            day.view = view;
+            day.replacesDay = true;
+        });
+    }
+
+    /** Buffers one slot write; returns the day's total calories including it. */
+    public double writeSlot(Long userId, LocalDate mealDate, MealSlot slot, String json, double calories, MacroTotals macros) {
+        return apply(userId, mealDate, false, day -> {
+            slot.set(day.view, json, calories);
+            slot.setMacros(day.view, macros);
+            day.dirtySlots.add(slot);
+        });
+    }
+
+    /** The buffered state of the day, if it has unflushed writes. */
+    public Optional<UserDailyMeals> get(Long userId, LocalDate mealDate) {
+        PendingDay day = pending.get(new Key(userId, mealDate));
+        if (day == null) return Optional.empty();
+        synchronized (day) {
+            return day.flushed || day.view == null ? Optional.empty() : Optional.of(copy(day.view));
+        }
+    }
+
+    /** Writes the day's pending state now, for callers about to change the stored row directly; throws if that fails. */
+    public void flushDay(Long userId, LocalDate mealDate) {
+        PendingDay day = pending.get(new Key(userId, mealDate));
+        if (day != null) flush(day);
+    }
+
+    /** Writes every pending day of the user now, ahead of a read of their changes; throws if that fails. */
+    public void flushUser(Long userId) {
+        for (PendingDay day : new ArrayList<>(pending.values())) {
+            if (day.key.userId().equals(userId)) flush(day);
+        }
+    }
+
+    /** Writes every pending day of the user within {@code [from, to]} now, ahead of a ranged read; throws if that fails. */
+    public void flushRange(Long userId, LocalDate from, LocalDate to) {
+        for (PendingDay day : new ArrayList<>(pending.values())) {
+            Key key = day.key;
+            if (key.userId().equals(userId) && !key.mealDate().isBefore(from) && !key.mealDate().isAfter(to)) {
+                flush(day);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void close() throws InterruptedException {
+        if (flusher == null) return;
+        closed = true;
+        flusher.shutdown();
+        long deadline = System.currentTimeMillis() + SHUTDOWN_TIMEOUT_MILLIS;
+        // scheduled flushes are cancelled by the shutdown; let a running one finish, then flush the rest here
+        flusher.awaitTermination(SHUTDOWN_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        while (true) {
+            for (PendingDay day : new ArrayList<>(pending.values())) {
+                flushInBackground(day);
+            }
+            long remaining = deadline - System.currentTimeMillis();
+            if (pending.isEmpty() || remaining <= 0) break;
+            Thread.sleep(Math.min(SHUTDOWN_RETRY_DELAY_MILLIS, remaining));
+        }
+        for (PendingDay day : new ArrayList<>(pending.values())) {
+            synchronized (day) {
+                if (day.flushed) continue;
+                log.error("Dropping {} buffered meal writes for user {} on {}: still failing at shutdown after {} flushes",
+                        day.updates, day.key.userId(), day.key.mealDate(), day.failures);
+                day.flushed = true;
+                pending.remove(day.key, day);
+            }
+        }
+    }
+
+    private double apply(Long userId, LocalDate mealDate, boolean replacesDay, Consumer<PendingDay> write) {
+        Key key = new Key(userId, mealDate);
+        while (true) {
+            PendingDay day = pending.computeIfAbsent(key, PendingDay::new);
+            synchronized (day) {
+                if (day.flushed) continue; // flushed and removed since we looked it up
+
+                if (day.view == null && !replacesDay) {
+                    day.view = repo.findByUserIdAndMealDate(userId, mealDate)
+                            .map(UserDailyMealsWriteBuffer::copy)
+                            .orElseGet(() -> emptyDay(userId, mealDate));
+                }
+                write.accept(day);
+                recalcTotals(day.view);
+                day.updates++;
+                bufferedWrites.increment();
+
+                if (closed) {
+                    flush(day);
+                } else if (day.flushTask == null) {
+                    day.flushTask = flusher.schedule(() -> flushInBackground(day), windowMillis, TimeUnit.MILLISECONDS);
+                } else if (day.updates >= maxUpdates && !day.flushQueued) {
+                    day.flushTask.cancel(false);
+                    day.flushTask = flusher.schedule(() -> flushInBackground(day), 0, TimeUnit.MILLISECONDS);
+                    day.flushQueued = true;
+                }
+                return day.view.getTotalCalories();
+            }
+        }
+    }
+
+    // throws if the write failed; the day is then either scheduled for a retry or dropped
+    private void flush(PendingDay day) {
+        synchronized (day) {
+            if (day.flushed) return;
+            try {
+                UserDailyMealsService.retryOnDeadlock(() -> transactionTemplate.execute(status -> rollups.track(day.key.userId(), day.key.mealDate(), stored -> {
+                    if (day.replacesDay) {
+                        repo.upsertDay(day.view);
+                        return new DayWrite<>(null, DayTotals.of(day.view));
+                    }
+                    // the stored day may have moved since the view was loaded; only the dirty slots replace it
+                    repo.upsertSlots(day.view, day.dirtySlots);
+                    return new DayWrite<>(null, DayTotals.withSlots(stored, day.view, day.dirtySlots));
+                })));
+                flushedWrites.increment();
+                // reads went to the buffer until now; anything cached for the day predates the flush
+                dayCache.invalidate(day.key.userId(), day.key.mealDate());
+                day.flushed = true;
+                pending.remove(day.key, day);
+            } catch (RuntimeException e) {
+                day.failures++;
+                if (e instanceof NonTransientDataAccessException || (!closed && day.failures > maxRetries)) {
+                    log.error("Dropping {} buffered meal writes for user {} on {} after {} failed flushes",
+                            day.updates, day.key.userId(), day.key.mealDate(), day.failures, e);
+                    if (day.flushTask != null) day.flushTask.cancel(false);
+                    day.flushed = true;
+                    pending.remove(day.key, day);
+                } else if (closed) {
+                    // the flusher is shut down; close() keeps retrying the day until its timeout
+                    log.warn("Flushing meals for user {} on {} failed during shutdown, retrying",
+                            day.key.userId(), day.key.mealDate(), e);
+                } else {
+                    log.warn("Flushing meals for user {} on {} failed, retrying in {} ms",
+                            day.key.userId(), day.key.mealDate(), windowMillis, e);
+                    if (day.flushTask != null) day.flushTask.cancel(false);
+                    day.flushTask = flusher.schedule(() -> flushInBackground(day), windowMillis, TimeUnit.MILLISECONDS);
+                    day.flushQueued = false;
+                }
+                throw e;
+            }
+        }
+    }
+
+    // for scheduled and shutdown flushes, where there is no caller to tell; flush has logged the failure
+    private void flushInBackground(PendingDay day) {
+        try {
+            flush(day);
+        } catch (RuntimeException e) {
+            // retried, left for close() or dropped by flush
+        }
+    }
+
+    private static UserDailyMeals emptyDay(Long userId, LocalDate mealDate) {
+        UserDailyMeals row = new UserDailyMeals();
+        row.setUserId(userId);
+        row.setMealDate(mealDate);
+        return row;
+    }
+
+    private static void recalcTotals(UserDailyMeals row) {
+        double total = 0d;
+        MacroTotals macros = new MacroTotals();
+        for (MealSlot slot : MealSlot.values()) {
+            Double calories = slot.calories(row);
+            if (calories != null) total += calories;
+            macros.add(slot.macros(row));
+        }
+        row.setTotalCalories(total);
+        row.setTotalMacros(macros);
+    }
+
+    private static UserDailyMeals copy(UserDailyMeals source) {
+        UserDailyMeals row = new UserDailyMeals();
+        row.setId(source.getId());
+        row.setUserId(source.getUserId());
+        row.setMealDate(source.getMealDate());
+        for (MealSlot slot : MealSlot.values()) {
+            slot.set(row, slot.json(source), slot.calories(source));
+            slot.setMacros(row, slot.macros(source) == null ? new MacroTotals() : slot.macros(source).copy());
+        }
+        row.setTotalCalories(source.getTotalCalories());
+        row.setTotalMacros(source.getTotalMacros() == null ? new MacroTotals() : source.getTotalMacros().copy());
+        row.setVersion(source.getVersion());
+        row.setChangeSeq(source.getChangeSeq());
+        row.setCreatedAt(source.getCreatedAt());
+        row.setUpdatedAt(source.getUpdatedAt());
+        return row;
+    }
+
+    private record Key(Long userId, LocalDate mealDate) {
+        Key {
+            Objects.requireNonNull(userId);
+            Objects.requireNonNull(mealDate);
+        }
+    }
+
+    /** Unflushed writes for one user day; guarded by its own monitor. */
+    private static final class PendingDay {
+        private final Key key;
+        private final Set<MealSlot> dirtySlots = EnumSet.noneOf(MealSlot.class);
+        private UserDailyMeals view; // full merged state of the day as readers should see it
+        private boolean replacesDay;
+        private int updates;
+        private ScheduledFuture<?> flushTask;
+        private boolean flushQueued;
+        private int failures;
+        private boolean flushed;
+
+        PendingDay(Key key) {
+            this.key = key;
+        }
+    }
+}
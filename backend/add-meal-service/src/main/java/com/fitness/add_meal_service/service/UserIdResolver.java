@@ -0,0 +1,52 @@
+package com.fitness.add_meal_service.service;
+
+import com.fitness.add_meal_service.model.UserAccount;
+import com.fitness.add_meal_service.repository.UserAccountRepository;
+import com.fitness.add_meal_service.util.JwtUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * The caller's user id from their verified token. Tokens from auth-service carry it in the
+ * {@code userId} claim, so resolving it needs no query. Older tokens only have the email as their
+ * subject; those go through a bounded email -> id cache ({@code meals.user-id-cache.*}, meters
+ * under {@code cache=user-id}) in front of user_account. Emails that match no user are not cached.
+ */
+@Component
+public class UserIdResolver {
+
+    private final UserAccountRepository userAccountRepository;
+    private final Cache<String, Long> idsByEmail;
+
+    public UserIdResolver(
+            UserAccountRepository userAccountRepository,
+            MeterRegistry meterRegistry,
+            @Value("${meals.user-id-cache.max-size:10000}") long maxSize,
+            @Value("${meals.user-id-cache.ttl:1h}") Duration ttl
+    ) {
+        this.userAccountRepository = userAccountRepository;
+        this.idsByEmail = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, idsByEmail, "user-id");
+    }
+
+    /** The user id of verified token claims, or null if they name no known user. */
+    public Long fromClaims(Claims claims) {
+        Long userId = claims.get(JwtUtil.USER_ID_CLAIM, Long.class);
+        if (userId != null) return userId;
+
+        String email = claims.getSubject();
+        if (email == null || email.isBlank()) return null;
+        return idsByEmail.get(email, key -> userAccountRepository.findByEmail(key).map(UserAccount::getId).orElse(null));
+    }
+}
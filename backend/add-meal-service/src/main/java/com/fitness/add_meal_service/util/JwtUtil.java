@@ -1,33 +1,99 @@
 package com.fitness.add_meal_service.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
-import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Verifies the tokens auth-service issues. The parser is built once (it is immutable and
+ * thread-safe), and verified claims are cached by the token's SHA-256 until the token's own
+ * {@code exp}, so a client repeating its token skips the signature check and JSON parsing.
+ * Tokens without {@code exp} are verified every time. The cache holds at most
+ * {@code meals.jwt.claims-cache.max-size} tokens; meters are published under {@code cache=jwt-claims}.
+ */
 @Component
 public class JwtUtil {
 
-    private final Key secretKey;
+    // numeric user id claim set by auth-service; tokens issued before it only carry the email
+    public static final String USER_ID_CLAIM = "userId";
 
-    public JwtUtil(@Value("${spring.jwt.secret.string}") String secret) {
-        this.secretKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    private final JwtParser parser;
+    private final Cache<String, Claims> verified;
+
+    public JwtUtil(
+            @Value("${spring.jwt.secret.string}") String secret,
+            @Value("${meals.jwt.claims-cache.max-size:10000}") long maxCachedTokens,
+            MeterRegistry meterRegistry
+    ) {
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .build();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maxCachedTokens)
+                .expireAfter(new UntilTokenExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, verified, "jwt-claims");
     }
 
     public String extractEmailFromToken(String token) {
+        Claims claims = parseClaims(token);
+        return claims == null ? null : claims.getSubject();
+    }
+
+    /** The verified claims of a (Bearer) token; null for a blank token, throws if it is invalid or expired. */
+    public Claims parseClaims(String token) {
         if (token == null || token.isBlank()) return null;
         if (token.startsWith("Bearer ")) token = token.substring(7);
 
-        return Jwts.parserBuilder()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        String key = digest(token);
+        Claims claims = verified.getIfPresent(key);
+        if (claims != null) return claims;
+
+        claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() != null) verified.put(key, claims);
+        return claims;
     }
-}
 
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // an entry lives until its token expires, and is never extended by reads
+    private static final class UntilTokenExpiry implements Expiry<String, Claims> {
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long millisLeft = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millisLeft));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
 
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,102 @@
+-- user_daily_meals used to be created by hibernate ddl-auto with no key on (user_id, meal_date),
+-- so concurrent first writes for a day could insert two rows. Create the table on fresh
+-- databases, merge each user/day's duplicates into its newest row, then enforce one row per
+-- user/day.
+
+CREATE TABLE IF NOT EXISTS user_daily_meals (
+    id                      BIGINT      NOT NULL AUTO_INCREMENT,
+    user_id                 BIGINT      NOT NULL,
+    meal_date               DATE        NOT NULL,
+    breakfast               JSON        NULL,
+    post_breakfast          JSON        NULL,
+    lunch                   JSON        NULL,
+    post_lunch              JSON        NULL,
+    pre_workout             JSON        NULL,
+    dinner                  JSON        NULL,
+    breakfast_calories      DOUBLE      NULL,
+    post_breakfast_calories DOUBLE      NULL,
+    lunch_calories          DOUBLE      NULL,
+    post_lunch_calories     DOUBLE      NULL,
+    pre_workout_calories    DOUBLE      NULL,
+    dinner_calories         DOUBLE      NULL,
+    total_calories          DOUBLE      NULL,
+    created_at              DATETIME(6) NULL,
+    updated_at              DATETIME(6) NULL,
+    PRIMARY KEY (id)
+) ENGINE = InnoDB;
+
+-- every row of a duplicated user/day, kept as a record of what the merge below started from
+CREATE TABLE user_daily_meals_duplicates LIKE user_daily_meals;
+
+INSERT INTO user_daily_meals_duplicates
+SELECT d.*
+FROM user_daily_meals d
+JOIN (SELECT user_id, meal_date
+      FROM user_daily_meals
+      GROUP BY user_id, meal_date
+      HAVING COUNT(*) > 1) dup
+  ON dup.user_id = d.user_id
+ AND dup.meal_date = d.meal_date;
+
+-- the newest row keeps its own slots; a slot it lacks comes from the newest older row that has it.
+-- Single-table UPDATE assigns left to right, so each slot's calories are taken before its JSON
+-- is filled in.
+UPDATE user_daily_meals keep
+SET
+    breakfast_calories = IF(breakfast IS NULL, (SELECT d.breakfast_calories FROM user_daily_meals_duplicates d
+                                WHERE d.user_id = keep.user_id AND d.meal_date = keep.meal_date AND d.breakfast IS NOT NULL
+                                ORDER BY d.id DESC LIMIT 1), breakfast_calories),
+    breakfast = COALESCE(breakfast, (SELECT d.breakfast FROM user_daily_meals_duplicates d
+                                WHERE d.user_id = keep.user_id AND d.meal_date = keep.meal_date AND d.breakfast IS NOT NULL
+                                ORDER BY d.id DESC LIMIT 1)),
+    post_breakfast_calories = IF(post_breakfast IS NULL, (SELECT d.post_breakfast_calories FROM user_daily_meals_duplicates d
+                                WHERE d.user_id = keep.user_id AND d.meal_date = keep.meal_date AND d.post_breakfast IS NOT NULL
+                                ORDER BY d.id DESC LIMIT 1), post_breakfast_calories),
+    post_breakfast = COALESCE(post_breakfast, (SELECT d.post_breakfast FROM user_daily_meals_duplicates d
+                                WHERE d.user_id = keep.user_id AND d.meal_date = keep.meal_date AND d.post_breakfast IS NOT NULL
+                                ORDER BY d.id DESC LIMIT 1)),
+    lunch_calories = IF(lunch IS NULL, (SELECT d.lunch_calories FROM user_daily_meals_duplicates d
+                                WHERE d.user_id = keep.user_id AND d.meal_date = keep.meal_date AND d.lunch IS NOT NULL
+                                ORDER BY d.id DESC LIMIT 1), lunch_calories),
+    lunch = COALESCE(lunch, (SELECT d.lunch FROM user_daily_meals_duplicates d
+                                WHERE d.user_id = keep.user_id AND d.meal_date = keep.meal_date AND d.lunch IS NOT NULL
+                                ORDER BY d.id DESC LIMIT 1)),
+    post_lunch_calories = IF(post_lunch IS NULL, (SELECT d.post_lunch_calories FROM user_daily_meals_duplicates d
+                                WHERE d.user_id = keep.user_id AND d.meal_date = keep.meal_date AND d.post_lunch IS NOT NULL
+                                ORDER BY d.id DESC LIMIT 1), post_lunch_calories),
+    post_lunch = COALESCE(post_lunch, (SELECT d.post_lunch FROM user_daily_meals_duplicates d
+                                WHERE d.user_id = keep.user_id AND d.meal_date = keep.meal_date AND d.post_lunch IS NOT NULL
+                                ORDER BY d.id DESC LIMIT 1)),
+    pre_workout_calories = IF(pre_workout IS NULL, (SELECT d.pre_workout_calories FROM user_daily_meals_duplicates d
+                                WHERE d.user_id = keep.user_id AND d.meal_date = keep.meal_date AND d.pre_workout IS NOT NULL
+                                ORDER BY d.id DESC LIMIT 1), pre_workout_calories),
+    pre_workout = COALESCE(pre_workout, (SELECT d.pre_workout FROM user_daily_meals_duplicates d
+                                WHERE d.user_id = keep.user_id AND d.meal_date = keep.meal_date AND d.pre_workout IS NOT NULL
+                                ORDER BY d.id DESC LIMIT 1)),
+    dinner_calories = IF(dinner IS NULL, (SELECT d.dinner_calories FROM user_daily_meals_duplicates d
+                                WHERE d.user_id = keep.user_id AND d.meal_date = keep.meal_date AND d.dinner IS NOT NULL
+                                ORDER BY d.id DESC LIMIT 1), dinner_calories),
+    dinner = COALESCE(dinner, (SELECT d.dinner FROM user_daily_meals_duplicates d
+                                WHERE d.user_id = keep.user_id AND d.meal_date = keep.meal_date AND d.dinner IS NOT NULL
+                                ORDER BY d.id DESC LIMIT 1))
+WHERE keep.id IN (SELECT id FROM (SELECT MAX(id) AS id
+                                  FROM user_daily_meals_duplicates
+                                  GROUP BY user_id, meal_date) newest);
+
+UPDATE user_daily_meals
+SET total_calories = COALESCE(breakfast_calories, 0) + COALESCE(post_breakfast_calories, 0)
+                   + COALESCE(lunch_calories, 0) + COALESCE(post_lunch_calories, 0)
+                   + COALESCE(pre_workout_calories, 0) + COALESCE(dinner_calories, 0)
+WHERE id IN (SELECT id FROM (SELECT MAX(id) AS id
+                             FROM user_daily_meals_duplicates
+                             GROUP BY user_id, meal_date) newest);
+
+DELETE older
+FROM user_daily_meals older
+JOIN user_daily_meals newer
+  ON newer.user_id = older.user_id
+ AND newer.meal_date = older.meal_date
+ AND newer.id > older.id;
+
+ALTER TABLE user_daily_meals
+    ADD CONSTRAINT uk_user_daily_meals_user_date UNIQUE (user_id, meal_date);
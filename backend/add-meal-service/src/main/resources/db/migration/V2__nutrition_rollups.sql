@@ -0,0 +1,63 @@
+-- Per-user weekly (ISO weeks, starting Monday) and monthly nutrition totals, kept up to date by the
+-- service as deltas in the same transaction as each day write. A day counts towards days_logged
+-- once it has calories. Macros are summed from the items' macros in the slot JSON.
+
+CREATE TABLE user_weekly_nutrition (
+    user_id     BIGINT      NOT NULL,
+    week_start  DATE        NOT NULL,
+    days_logged INT         NOT NULL DEFAULT 0,
+    calories    DOUBLE      NOT NULL DEFAULT 0,
+    protein     DOUBLE      NOT NULL DEFAULT 0,
+    carbs       DOUBLE      NOT NULL DEFAULT 0,
+    fat         DOUBLE      NOT NULL DEFAULT 0,
+    fiber       DOUBLE      NOT NULL DEFAULT 0,
+    updated_at  DATETIME(6) NULL,
+    PRIMARY KEY (user_id, week_start)
+) ENGINE = InnoDB;
+
+CREATE TABLE user_monthly_nutrition (
+    user_id     BIGINT      NOT NULL,
+    month_start DATE        NOT NULL,
+    days_logged INT         NOT NULL DEFAULT 0,
+    calories    DOUBLE      NOT NULL DEFAULT 0,
+    protein     DOUBLE      NOT NULL DEFAULT 0,
+    carbs       DOUBLE      NOT NULL DEFAULT 0,
+    fat         DOUBLE      NOT NULL DEFAULT 0,
+    fiber       DOUBLE      NOT NULL DEFAULT 0,
+    updated_at  DATETIME(6) NULL,
+    PRIMARY KEY (user_id, month_start)
+) ENGINE = InnoDB;
+
+-- backfill from the days already stored
+CREATE TEMPORARY TABLE day_nutrition AS
+SELECT d.user_id,
+       d.meal_date,
+       COALESCE(d.total_calories, 0) AS calories,
+       COALESCE(SUM(m.protein), 0)   AS protein,
+       COALESCE(SUM(m.carbs), 0)     AS carbs,
+       COALESCE(SUM(m.fat), 0)       AS fat,
+       COALESCE(SUM(m.fiber), 0)     AS fiber
+FROM user_daily_meals d
+LEFT JOIN JSON_TABLE(
+        JSON_ARRAY(d.breakfast, d.post_breakfast, d.lunch, d.post_lunch, d.pre_workout, d.dinner),
+        '$[*].items[*]' COLUMNS (
+            protein DOUBLE PATH '$.macros.protein' NULL ON EMPTY NULL ON ERROR,
+            carbs   DOUBLE PATH '$.macros.carbs'   NULL ON EMPTY NULL ON ERROR,
+            fat     DOUBLE PATH '$.macros.fat'     NULL ON EMPTY NULL ON ERROR,
+            fiber   DOUBLE PATH '$.macros.fiber'   NULL ON EMPTY NULL ON ERROR
+        )) m ON TRUE
+GROUP BY d.id;
+
+INSERT INTO user_weekly_nutrition (user_id, week_start, days_logged, calories, protein, carbs, fat, fiber, updated_at)
+SELECT user_id, DATE_SUB(meal_date, INTERVAL WEEKDAY(meal_date) DAY),
+       SUM(calories > 0), SUM(calories), SUM(protein), SUM(carbs), SUM(fat), SUM(fiber), NOW(6)
+FROM day_nutrition
+GROUP BY user_id, DATE_SUB(meal_date, INTERVAL WEEKDAY(meal_date) DAY);
+
+INSERT INTO user_monthly_nutrition (user_id, month_start, days_logged, calories, protein, carbs, fat, fiber, updated_at)
+SELECT user_id, DATE_SUB(meal_date, INTERVAL DAYOFMONTH(meal_date) - 1 DAY),
+       SUM(calories > 0), SUM(calories), SUM(protein), SUM(carbs), SUM(fat), SUM(fiber), NOW(6)
+FROM day_nutrition
+GROUP BY user_id, DATE_SUB(meal_date, INTERVAL DAYOFMONTH(meal_date) - 1 DAY);
+
+DROP TEMPORARY TABLE day_nutrition;
@@ -0,0 +1,153 @@
+-- Per-slot and per-day macro totals as typed columns, so analytics can sum them in plain SQL.
+-- The service computes them from the items' macros on every write; existing days are backfilled
+-- from the slot JSON here.
+
+ALTER TABLE user_daily_meals
+    ADD COLUMN breakfast_protein      DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN breakfast_carbs        DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN breakfast_fat          DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN breakfast_fiber        DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN post_breakfast_protein DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN post_breakfast_carbs   DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN post_breakfast_fat     DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN post_breakfast_fiber   DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN lunch_protein          DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN lunch_carbs            DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN lunch_fat              DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN lunch_fiber            DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN post_lunch_protein     DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN post_lunch_carbs       DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN post_lunch_fat         DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN post_lunch_fiber       DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN pre_workout_protein    DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN pre_workout_carbs      DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN pre_workout_fat        DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN pre_workout_fiber      DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN dinner_protein         DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN dinner_carbs           DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN dinner_fat             DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN dinner_fiber           DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN total_protein          DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN total_carbs            DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN total_fat              DOUBLE NOT NULL DEFAULT 0,
+    ADD COLUMN total_fiber            DOUBLE NOT NULL DEFAULT 0;
+
+UPDATE user_daily_meals d
+JOIN (SELECT d2.id,
+             COALESCE(SUM(i.protein), 0) AS protein,
+             COALESCE(SUM(i.carbs), 0) AS carbs,
+             COALESCE(SUM(i.fat), 0) AS fat,
+             COALESCE(SUM(i.fiber), 0) AS fiber
+      FROM user_daily_meals d2,
+           JSON_TABLE(d2.breakfast, '$.items[*]' COLUMNS (
+               protein DOUBLE PATH '$.macros.protein' NULL ON EMPTY NULL ON ERROR,
+               carbs   DOUBLE PATH '$.macros.carbs' NULL ON EMPTY NULL ON ERROR,
+               fat     DOUBLE PATH '$.macros.fat' NULL ON EMPTY NULL ON ERROR,
+               fiber   DOUBLE PATH '$.macros.fiber' NULL ON EMPTY NULL ON ERROR
+           )) i
+      GROUP BY d2.id) items ON items.id = d.id
+SET d.breakfast_protein = items.protein,
+    d.breakfast_carbs = items.carbs,
+    d.breakfast_fat = items.fat,
+    d.breakfast_fiber = items.fiber;
+
+UPDATE user_daily_meals d
+JOIN (SELECT d2.id,
+             COALESCE(SUM(i.protein), 0) AS protein,
+             COALESCE(SUM(i.carbs), 0) AS carbs,
+             COALESCE(SUM(i.fat), 0) AS fat,
+             COALESCE(SUM(i.fiber), 0) AS fiber
+      FROM user_daily_meals d2,
+           JSON_TABLE(d2.post_breakfast, '$.items[*]' COLUMNS (
+               protein DOUBLE PATH '$.macros.protein' NULL ON EMPTY NULL ON ERROR,
+               carbs   DOUBLE PATH '$.macros.carbs' NULL ON EMPTY NULL ON ERROR,
+               fat     DOUBLE PATH '$.macros.fat' NULL ON EMPTY NULL ON ERROR,
+               fiber   DOUBLE PATH '$.macros.fiber' NULL ON EMPTY NULL ON ERROR
+           )) i
+      GROUP BY d2.id) items ON items.id = d.id
+SET d.post_breakfast_protein = items.protein,
+    d.post_breakfast_carbs = items.carbs,
+    d.post_breakfast_fat = items.fat,
+    d.post_breakfast_fiber = items.fiber;
+
+UPDATE user_daily_meals d
+JOIN (SELECT d2.id,
+             COALESCE(SUM(i.protein), 0) AS protein,
+             COALESCE(SUM(i.carbs), 0) AS carbs,
+             COALESCE(SUM(i.fat), 0) AS fat,
+             COALESCE(SUM(i.fiber), 0) AS fiber
+      FROM user_daily_meals d2,
+           JSON_TABLE(d2.lunch, '$.items[*]' COLUMNS (
+               protein DOUBLE PATH '$.macros.protein' NULL ON EMPTY NULL ON ERROR,
+               carbs   DOUBLE PATH '$.macros.carbs' NULL ON EMPTY NULL ON ERROR,
+               fat     DOUBLE PATH '$.macros.fat' NULL ON EMPTY NULL ON ERROR,
+               fiber   DOUBLE PATH '$.macros.fiber' NULL ON EMPTY NULL ON ERROR
+           )) i
+      GROUP BY d2.id) items ON items.id = d.id
+SET d.lunch_protein = items.protein,
+    d.lunch_carbs = items.carbs,
+    d.lunch_fat = items.fat,
+    d.lunch_fiber = items.fiber;
+
+UPDATE user_daily_meals d
+JOIN (SELECT d2.id,
+             COALESCE(SUM(i.protein), 0) AS protein,
+             COALESCE(SUM(i.carbs), 0) AS carbs,
+             COALESCE(SUM(i.fat), 0) AS fat,
+             COALESCE(SUM(i.fiber), 0) AS fiber
+      FROM user_daily_meals d2,
+           JSON_TABLE(d2.post_lunch, '$.items[*]' COLUMNS (
+               protein DOUBLE PATH '$.macros.protein' NULL ON EMPTY NULL ON ERROR,
+               carbs   DOUBLE PATH '$.macros.carbs' NULL ON EMPTY NULL ON ERROR,
+               fat     DOUBLE PATH '$.macros.fat' NULL ON EMPTY NULL ON ERROR,
+               fiber   DOUBLE PATH '$.macros.fiber' NULL ON EMPTY NULL ON ERROR
+           )) i
+      GROUP BY d2.id) items ON items.id = d.id
+SET d.post_lunch_protein = items.protein,
+    d.post_lunch_carbs = items.carbs,
+    d.post_lunch_fat = items.fat,
+    d.post_lunch_fiber = items.fiber;
+
+UPDATE user_daily_meals d
+JOIN (SELECT d2.id,
+             COALESCE(SUM(i.protein), 0) AS protein,
+             COALESCE(SUM(i.carbs), 0) AS carbs,
+             COALESCE(SUM(i.fat), 0) AS fat,
+             COALESCE(SUM(i.fiber), 0) AS fiber
+      FROM user_daily_meals d2,
+           JSON_TABLE(d2.pre_workout, '$.items[*]' COLUMNS (
+               protein DOUBLE PATH '$.macros.protein' NULL ON EMPTY NULL ON ERROR,
+               carbs   DOUBLE PATH '$.macros.carbs' NULL ON EMPTY NULL ON ERROR,
+               fat     DOUBLE PATH '$.macros.fat' NULL ON EMPTY NULL ON ERROR,
+               fiber   DOUBLE PATH '$.macros.fiber' NULL ON EMPTY NULL ON ERROR
+           )) i
+      GROUP BY d2.id) items ON items.id = d.id
+SET d.pre_workout_protein = items.protein,
+    d.pre_workout_carbs = items.carbs,
+    d.pre_workout_fat = items.fat,
+    d.pre_workout_fiber = items.fiber;
+
+UPDATE user_daily_meals d
+JOIN (SELECT d2.id,
+             COALESCE(SUM(i.protein), 0) AS protein,
+             COALESCE(SUM(i.carbs), 0) AS carbs,
+             COALESCE(SUM(i.fat), 0) AS fat,
+             COALESCE(SUM(i.fiber), 0) AS fiber
+      FROM user_daily_meals d2,
+           JSON_TABLE(d2.dinner, '$.items[*]' COLUMNS (
+               protein DOUBLE PATH '$.macros.protein' NULL ON EMPTY NULL ON ERROR,
+               carbs   DOUBLE PATH '$.macros.carbs' NULL ON EMPTY NULL ON ERROR,
+               fat     DOUBLE PATH '$.macros.fat' NULL ON EMPTY NULL ON ERROR,
+               fiber   DOUBLE PATH '$.macros.fiber' NULL ON EMPTY NULL ON ERROR
+           )) i
+      GROUP BY d2.id) items ON items.id = d.id
+SET d.dinner_protein = items.protein,
+    d.dinner_carbs = items.carbs,
+    d.dinner_fat = items.fat,
+    d.dinner_fiber = items.fiber;
+
+UPDATE user_daily_meals
+SET total_protein = breakfast_protein + post_breakfast_protein + lunch_protein + post_lunch_protein + pre_workout_protein + dinner_protein,
+    total_carbs = breakfast_carbs + post_breakfast_carbs + lunch_carbs + post_lunch_carbs + pre_workout_carbs + dinner_carbs,
+    total_fat = breakfast_fat + post_breakfast_fat + lunch_fat + post_lunch_fat + pre_workout_fat + dinner_fat,
+    total_fiber = breakfast_fiber + post_breakfast_fiber + lunch_fiber + post_lunch_fiber + pre_workout_fiber + dinner_fiber;
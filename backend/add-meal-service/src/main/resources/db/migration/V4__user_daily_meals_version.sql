@@ -0,0 +1,5 @@
+-- Bumped by every write to the day; GET /api/meals/date/{mealDate} serves it as the ETag so an
+-- unchanged day can be answered with 304 from this column alone.
+
+ALTER TABLE user_daily_meals
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,26 @@
+-- Delta sync for GET /api/meals/changes. Every write to a day stamps it with the user's next
+-- change_seq, taken from user_meal_change_seq in the write's transaction. The counter row stays
+-- locked until commit, so a user's writes become visible in sequence order and a client that has
+-- read everything up to cursor N can never miss a later write with a smaller number.
+
+CREATE TABLE user_meal_change_seq (
+    user_id  BIGINT NOT NULL,
+    last_seq BIGINT NOT NULL,
+    PRIMARY KEY (user_id)
+) ENGINE = InnoDB;
+
+ALTER TABLE user_daily_meals
+    ADD COLUMN change_seq BIGINT NOT NULL DEFAULT 0;
+
+-- number the days already stored in the order they were last written
+UPDATE user_daily_meals d
+JOIN (SELECT id, ROW_NUMBER() OVER (PARTITION BY user_id ORDER BY updated_at, id) AS seq
+      FROM user_daily_meals) numbered ON numbered.id = d.id
+SET d.change_seq = numbered.seq;
+
+INSERT INTO user_meal_change_seq (user_id, last_seq)
+SELECT user_id, MAX(change_seq)
+FROM user_daily_meals
+GROUP BY user_id;
+
+CREATE INDEX idx_user_daily_meals_user_change ON user_daily_meals (user_id, change_seq);
@@ -0,0 +1,93 @@
+package com.fitness.add_meal_service.catalog;
+
+import com.fitness.add_meal_service.dto.ManualMealResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks MealMacroTree nearest-neighbour lookups against a linear scan over a small generated
+ * catalog. Macros come from a few coarse values so many profiles repeat and share split values,
+ * and most meals are added after {@code markReady()} so both leaf inserts and rebuilds are covered.
+ */
+class MealMacroTreeTest {
+
+    private final List<ManualMealResponse> catalog = new ArrayList<>();
+    private final MealMacroTree tree = new MealMacroTree();
+
+    MealMacroTreeTest() {
+        Random random = new Random(42);
+        for (int i = 0; i < 500; i++) {
+            ManualMealResponse meal = new ManualMealResponse();
+            meal.setId(1_000L + i);
+            meal.setMealName("Meal " + i);
+            meal.setCalories(random.nextInt(25) == 0 ? null : (double) (100 * (1 + random.nextInt(4))));
+            meal.setProtein(grams(random));
+            meal.setCarbs(grams(random));
+            meal.setFats(grams(random));
+            meal.setFiber(random.nextInt(3) == 0 ? null : grams(random));
+            catalog.add(meal);
+        }
+        for (int i = 0; i < 100; i++) tree.add(catalog.get(i));
+        tree.markReady();
+        for (int i = 100; i < catalog.size(); i++) tree.add(catalog.get(i));
+    }
+
+    @Test
+    void nearestMatchesALinearScan() {
+        for (ManualMealResponse meal : catalog) {
+            if (MealMacroTree.profile(meal) == null) continue;
+            for (int k : new int[]{1, 5, 25}) {
+                List<ManualMealResponse> found = tree.nearest(meal, k);
+                List<Double> expected = distancesFrom(meal).subList(0, k);
+
+                // equally distant meals may come in any order, so compare distances, then membership
+                List<Double> foundDistances = found.stream().map(other -> distance(meal, other)).toList();
+                assertEquals(expected, foundDistances, "nearest " + k + " to meal " + meal.getId());
+                for (ManualMealResponse other : found) {
+                    assertTrue(!other.getId().equals(meal.getId()), "meal " + meal.getId() + " is its own neighbour");
+                    assertTrue(MealMacroTree.profile(other) != null, "meal " + other.getId() + " has no profile");
+                }
+            }
+        }
+    }
+
+    @Test
+    void mealsWithoutPositiveCaloriesHaveNoNeighbours() {
+        ManualMealResponse noCalories = new ManualMealResponse();
+        noCalories.setId(1L);
+        noCalories.setCalories(0d);
+        noCalories.setProtein(10d);
+        assertEquals(List.of(), tree.nearest(noCalories, 5));
+    }
+
+    private List<Double> distancesFrom(ManualMealResponse meal) {
+        List<Double> distances = new ArrayList<>();
+        for (ManualMealResponse other : catalog) {
+            if (other.getId().equals(meal.getId()) || MealMacroTree.profile(other) == null) continue;
+            distances.add(distance(meal, other));
+        }
+        distances.sort(null);
+        return distances;
+    }
+
+    // squared Euclidean distance between profiles, summed in the same order as the tree does
+    private static double distance(ManualMealResponse a, ManualMealResponse b) {
+        double[] p = MealMacroTree.profile(a), q = MealMacroTree.profile(b);
+        double dist = 0;
+        for (int d = 0; d < p.length; d++) {
+            double diff = q[d] - p[d];
+            dist += diff * diff;
+        }
+        return dist;
+    }
+
+    private static Double grams(Random random) {
+        return (double) (5 * random.nextInt(6));
+    }
+}
@@ -0,0 +1,132 @@
+package com.fitness.add_meal_service.catalog;
+
+import com.fitness.add_meal_service.dto.ManualMealResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks MealNutrientIndex range queries against a linear scan over a small generated catalog.
+ * Values are coarse so that many meals tie, and some are missing; part of the catalog is added
+ * after {@code markReady()} so the incrementally maintained sort orders are covered too.
+ */
+class MealNutrientIndexTest {
+
+    private static final MealNutrientIndex.Nutrient[] NUTRIENTS = MealNutrientIndex.Nutrient.values();
+
+    private final List<ManualMealResponse> catalog = new ArrayList<>();
+    private final MealNutrientIndex index = new MealNutrientIndex();
+
+    MealNutrientIndexTest() {
+        Random random = new Random(42);
+        for (int i = 0; i < 400; i++) {
+            ManualMealResponse meal = new ManualMealResponse();
+            meal.setId(1_000L + i);
+            meal.setMealName("Meal " + i);
+            meal.setCalories(random.nextInt(20) == 0 ? Double.valueOf(0) : value(random, 600));
+            meal.setCarbs(value(random, 80));
+            meal.setProtein(value(random, 40));
+            meal.setFats(value(random, 30));
+            meal.setFiber(value(random, 12));
+            catalog.add(meal);
+        }
+        for (int i = 0; i < 300; i++) index.add(catalog.get(i));
+        index.markReady();
+        for (int i = 300; i < catalog.size(); i++) index.add(catalog.get(i));
+    }
+
+    @Test
+    void rangeQueriesMatchALinearScan() {
+        Random random = new Random(7);
+        for (int round = 0; round < 2_000; round++) {
+            MealNutrientIndex.Query query = new MealNutrientIndex.Query();
+            Double[] min = new Double[NUTRIENTS.length];
+            Double[] max = new Double[NUTRIENTS.length];
+            for (int c = 0; c < NUTRIENTS.length; c++) {
+                if (random.nextInt(3) != 0) continue;
+                // bounds on existing values too, so inclusive edges are exercised
+                min[c] = random.nextBoolean() ? null : nutrient(catalog.get(random.nextInt(catalog.size())), c);
+                max[c] = random.nextBoolean() ? null : nutrient(catalog.get(random.nextInt(catalog.size())), c);
+                query.range(NUTRIENTS[c], min[c], max[c]);
+            }
+            MealNutrientIndex.SortKey sort = MealNutrientIndex.SortKey.values()[random.nextInt(MealNutrientIndex.SortKey.values().length)];
+            boolean descending = random.nextBoolean();
+            int limit = 1 + random.nextInt(30);
+            query.orderBy(sort, descending).limit(limit);
+
+            List<Long> expected = linearScan(min, max, sort, descending, limit);
+            List<Long> found = index.query(query).stream().map(ManualMealResponse::getId).toList();
+            assertEquals(expected, found, "round " + round + ": sort " + sort + (descending ? " desc" : " asc"));
+        }
+    }
+
+    @Test
+    void unboundedQueryReturnsTheTopOfTheWholeCatalog() {
+        MealNutrientIndex.Query query = new MealNutrientIndex.Query()
+                .orderBy(MealNutrientIndex.SortKey.PROTEIN_PER_CALORIE, true)
+                .limit(10);
+        assertEquals(linearScan(new Double[NUTRIENTS.length], new Double[NUTRIENTS.length],
+                        MealNutrientIndex.SortKey.PROTEIN_PER_CALORIE, true, 10),
+                index.query(query).stream().map(ManualMealResponse::getId).toList());
+    }
+
+    // every meal inside all bounds with a score, best first; ties keep catalog (insertion) order
+    private List<Long> linearScan(Double[] min, Double[] max, MealNutrientIndex.SortKey sort, boolean descending, int limit) {
+        record Scored(int ordinal, double score) {
+        }
+        List<Scored> matches = new ArrayList<>();
+        for (int i = 0; i < catalog.size(); i++) {
+            ManualMealResponse meal = catalog.get(i);
+            boolean inside = true;
+            for (int c = 0; c < NUTRIENTS.length && inside; c++) {
+                if (min[c] == null && max[c] == null) continue;
+                Double v = nutrient(meal, c);
+                inside = v != null && (min[c] == null || v >= min[c]) && (max[c] == null || v <= max[c]);
+            }
+            Double score = score(meal, sort);
+            if (inside && score != null) matches.add(new Scored(i, score));
+        }
+        Comparator<Scored> byScore = Comparator.comparingDouble(Scored::score);
+        return matches.stream()
+                .sorted((descending ? byScore.reversed() : byScore).thenComparingInt(Scored::ordinal))
+                .limit(limit)
+                .map(s -> catalog.get(s.ordinal()).getId())
+                .toList();
+    }
+
+    private static Double score(ManualMealResponse meal, MealNutrientIndex.SortKey sort) {
+        Function<ManualMealResponse, Double> numerator = switch (sort) {
+            case CALORIES -> ManualMealResponse::getCalories;
+            case CARBS -> ManualMealResponse::getCarbs;
+            case PROTEIN, PROTEIN_PER_CALORIE -> ManualMealResponse::getProtein;
+            case FATS -> ManualMealResponse::getFats;
+            case FIBER, FIBER_PER_CALORIE -> ManualMealResponse::getFiber;
+        };
+        Double v = numerator.apply(meal);
+        if (v == null) return null;
+        if (sort != MealNutrientIndex.SortKey.PROTEIN_PER_CALORIE && sort != MealNutrientIndex.SortKey.FIBER_PER_CALORIE) return v;
+        Double calories = meal.getCalories();
+        return calories == null || calories <= 0 ? null : v / calories;
+    }
+
+    private static Double nutrient(ManualMealResponse meal, int column) {
+        return switch (NUTRIENTS[column]) {
+            case CALORIES -> meal.getCalories();
+            case CARBS -> meal.getCarbs();
+            case PROTEIN -> meal.getProtein();
+            case FATS -> meal.getFats();
+            case FIBER -> meal.getFiber();
+        };
+    }
+
+    // half-gram steps up to max, missing about one time in ten
+    private static Double value(Random random, int max) {
+        return random.nextInt(10) == 0 ? null : random.nextInt(max * 2 + 1) / 2d;
+    }
+}
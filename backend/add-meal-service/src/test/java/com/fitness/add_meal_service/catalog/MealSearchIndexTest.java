@@ -0,0 +1,242 @@
+package com.fitness.add_meal_service.catalog;
+
+import com.fitness.add_meal_service.dto.ManualMealResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks MealSearchIndex against a linear scan over a small generated catalog: substring matches,
+ * paging, and the tiered ranking with typo matches. Part of the catalog is added after
+ * {@code markReady()} so the incrementally maintained name order is covered too.
+ */
+class MealSearchIndexTest {
+
+    private static final String[] WORDS = {
+            "grilled", "boiled", "spicy", "masala", "brown", "fried", "rice", "paneer", "chicken",
+            "dal", "roti", "egg", "curry", "salad", "oats", "banana", "tikka", "butter", "aloo", "gobi"
+    };
+    private static final String[] SUFFIXES = {"", "", "", " 100g", " (home)", " - large", " 250ml"};
+
+    private final List<ManualMealResponse> catalog = catalog(new Random(42), 300);
+    private final MealSearchIndex index = index(catalog);
+
+    @Test
+    void substringMatchesAreExactlyTheNamesContainingTheKeyword() {
+        for (String keyword : keywords()) {
+            String q = MealSearchIndex.normalize(keyword);
+            Set<Long> expected = idsContaining(q);
+
+            // typo matches rank after every substring match, so the containing names come first
+            List<ManualMealResponse> found = index.search(keyword, catalog.size());
+            Set<Long> leading = new LinkedHashSet<>();
+            for (int i = 0; i < found.size() && name(found.get(i)).contains(q); i++) leading.add(found.get(i).getId());
+            assertEquals(expected, leading, "search for \"" + keyword + "\"");
+            for (int i = leading.size(); i < found.size(); i++) {
+                assertTrue(!name(found.get(i)).contains(q), "substring match ranked after a typo match for \"" + keyword + "\"");
+            }
+        }
+    }
+
+    @Test
+    void walkingAllPagesReturnsEveryContainingNameInNameOrder() {
+        for (String keyword : keywords()) {
+            String q = MealSearchIndex.normalize(keyword);
+            List<Long> expected = catalog.stream()
+                    .filter(meal -> name(meal).contains(q))
+                    .sorted(BY_NAME)
+                    .map(ManualMealResponse::getId)
+                    .toList();
+
+            List<Long> walked = new ArrayList<>();
+            String afterName = null;
+            long afterId = 0;
+            while (true) {
+                List<ManualMealResponse> page = index.page(keyword, afterName, afterId, 7);
+                page.forEach(meal -> walked.add(meal.getId()));
+                if (page.size() < 7) break;
+                ManualMealResponse last = page.get(page.size() - 1);
+                afterName = last.getMealName();
+                afterId = last.getId();
+            }
+            assertEquals(expected, walked, "pages for \"" + keyword + "\"");
+        }
+    }
+
+    @Test
+    void absentTrigramsMatchNothing() {
+        assertEquals(List.of(), index.page("xyz", null, 0, 10));
+        assertEquals(List.of(), index.page("rice zz", null, 0, 10));
+        assertTrue(index.search("qqqqqq", 10).isEmpty());
+    }
+
+    @Test
+    void rankingMatchesABruteForceRanking() {
+        List<String> keywords = new ArrayList<>(keywords());
+        keywords.addAll(List.of("panner", "chiken", "masla", "buter chiken", "tika", "curyy", "bananna", "salda",
+                "spicey", "brwn rice", "aloo gobi", "griled paneer", "fri", "boild eg",
+                // short keywords that only occur inside words, so the limit cuts within the substring tier
+                "ic", "ka", "ll", "ee", "ut", "an", "ob"));
+        Random random = new Random(11);
+        for (int i = 0; i < 40; i++) keywords.add(typo(WORDS[random.nextInt(WORDS.length)], random));
+
+        for (String keyword : keywords) {
+            String q = MealSearchIndex.normalize(keyword);
+            List<Long> expected = bruteForce(q);
+            for (int limit : new int[]{1, 5, 20, catalog.size()}) {
+                List<Long> found = index.search(keyword, limit).stream().map(ManualMealResponse::getId).toList();
+                assertEquals(expected.subList(0, Math.min(limit, expected.size())), found,
+                        "search for \"" + keyword + "\" with limit " + limit);
+            }
+        }
+    }
+
+    @Test
+    void exactAndPrefixMatchesOutrankLongerAndTypoMatches() {
+        List<ManualMealResponse> meals = new ArrayList<>();
+        String[] names = {"Brown rice cake", "Licorice", "Rice pudding", "Fried rice", "Rice", "Paneer tikka", "Rize bowl"};
+        for (int i = 0; i < names.length; i++) {
+            ManualMealResponse meal = new ManualMealResponse();
+            meal.setId((long) i + 1);
+            meal.setMealName(names[i]);
+            meals.add(meal);
+        }
+        MealSearchIndex small = index(meals);
+
+        assertEquals(List.of("Rice", "Rice pudding", "Fried rice", "Brown rice cake", "Licorice", "Rize bowl"),
+                small.search("rice", 10).stream().map(ManualMealResponse::getMealName).toList());
+        assertEquals(List.of("Paneer tikka"), small.search("panner", 10).stream().map(ManualMealResponse::getMealName).toList());
+        // a short keyword keeps scanning after the result fills, so a shorter name later in order still wins
+        assertEquals(List.of("Rice"), small.search("ic", 1).stream().map(ManualMealResponse::getMealName).toList());
+    }
+
+    // --- brute force: the ranking rules from MealSearchIndex's class comment, applied to every meal ---
+
+    private List<Long> bruteForce(String q) {
+        record Ranked(ManualMealResponse meal, int tier, int typos) {
+        }
+        String[] tokens = q.split(" ");
+        List<Ranked> ranked = new ArrayList<>();
+        for (ManualMealResponse meal : catalog) {
+            String name = name(meal);
+            int tier = name.equals(q) ? 0 : name.startsWith(q) ? 1 : name.contains(" " + q) ? 2 : name.contains(q) ? 3 : 4;
+            int typos = tier < 4 ? 0 : typos(name, tokens);
+            if (typos >= 0) ranked.add(new Ranked(meal, tier, typos));
+        }
+        return ranked.stream()
+                .sorted(Comparator.<Ranked>comparingInt(r -> r.tier)
+                        .thenComparingInt(r -> r.typos)
+                        .thenComparingInt(r -> name(r.meal).length())
+                        .thenComparing(r -> r.meal, BY_NAME))
+                .map(r -> r.meal.getId())
+                .toList();
+    }
+
+    // each token must prefix a word of the name or be within 1 (3-5 letters) or 2 (longer) edits of one
+    private static int typos(String name, String[] tokens) {
+        int total = 0;
+        for (String token : tokens) {
+            int max = token.length() < 3 || !token.chars().allMatch(Character::isLetter) ? 0 : token.length() <= 5 ? 1 : 2;
+            int best = Integer.MAX_VALUE;
+            for (String word : name.split(" ")) {
+                best = Math.min(best, word.startsWith(token) ? 0 : levenshtein(token, word));
+            }
+            if (best > max) return -1;
+            total += best;
+        }
+        return total;
+    }
+
+    private static int levenshtein(String a, String b) {
+        int[][] d = new int[a.length() + 1][b.length() + 1];
+        for (int i = 0; i <= a.length(); i++) d[i][0] = i;
+        for (int j = 0; j <= b.length(); j++) d[0][j] = j;
+        for (int i = 1; i <= a.length(); i++) {
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                d[i][j] = Math.min(Math.min(d[i - 1][j] + 1, d[i][j - 1] + 1), d[i - 1][j - 1] + cost);
+            }
+        }
+        return d[a.length()][b.length()];
+    }
+
+    private static String typo(String word, Random random) {
+        StringBuilder sb = new StringBuilder(word);
+        int at = random.nextInt(word.length());
+        switch (random.nextInt(3)) {
+            case 0 -> sb.setCharAt(at, (char) ('a' + random.nextInt(26)));
+            case 1 -> sb.deleteCharAt(at);
+            default -> sb.insert(at, (char) ('a' + random.nextInt(26)));
+        }
+        return sb.toString();
+    }
+
+    private List<String> keywords() {
+        List<String> keywords = new ArrayList<>(List.of("ri", "al", "e", "rice", "RICE", "ice", "aneer", "d-r", "masala d",
+                "chicken tikka", "100g", "(home)", "ka ma", "g", "er b"));
+        // every trigram that occurs in some name, plus a few cut across word boundaries
+        Random random = new Random(7);
+        for (int i = 0; i < 60; i++) {
+            String name = name(catalog.get(random.nextInt(catalog.size())));
+            if (name.length() < 3) continue;
+            int from = random.nextInt(name.length() - 2);
+            int to = Math.min(name.length(), from + 3 + random.nextInt(6));
+            keywords.add(name.substring(from, to).trim());
+        }
+        keywords.removeIf(String::isEmpty);
+        return keywords;
+    }
+
+    private Set<Long> idsContaining(String q) {
+        Set<Long> ids = new LinkedHashSet<>();
+        for (ManualMealResponse meal : catalog) {
+            if (name(meal).contains(q)) ids.add(meal.getId());
+        }
+        return ids;
+    }
+
+    static final Comparator<ManualMealResponse> BY_NAME =
+            Comparator.comparing(MealSearchIndexTest::name).thenComparing(ManualMealResponse::getId);
+
+    static String name(ManualMealResponse meal) {
+        return MealSearchIndex.normalize(meal.getMealName());
+    }
+
+    static MealSearchIndex index(List<ManualMealResponse> catalog) {
+        MealSearchIndex index = new MealSearchIndex();
+        int beforeReady = catalog.size() * 2 / 3;
+        for (int i = 0; i < beforeReady; i++) index.add(catalog.get(i));
+        index.markReady();
+        for (int i = beforeReady; i < catalog.size(); i++) index.add(catalog.get(i));
+        return index;
+    }
+
+    static List<ManualMealResponse> catalog(Random random, int size) {
+        List<ManualMealResponse> meals = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            StringBuilder name = new StringBuilder();
+            int words = 1 + random.nextInt(3);
+            for (int w = 0; w < words; w++) {
+                if (w > 0) name.append(random.nextInt(5) == 0 ? "-" : " ");
+                String word = WORDS[random.nextInt(WORDS.length)];
+                name.append(w == 0 ? Character.toUpperCase(word.charAt(0)) + word.substring(1) : word);
+            }
+            name.append(SUFFIXES[random.nextInt(SUFFIXES.length)]);
+
+            ManualMealResponse meal = new ManualMealResponse();
+            // ids are not in name order, so ties on name fall back to a real comparison
+            meal.setId(1_000L + (i * 37L) % size);
+            meal.setMealName(name.toString());
+            meals.add(meal);
+        }
+        return meals;
+    }
+}
@@ -0,0 +1,165 @@
+package com.fitness.add_meal_service.dto;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fitness.add_meal_service.model.MacroTotals;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Allocation benchmark for GET /api/meals/date/{mealDate}: bytes allocated per response when the
+ * slot JSON is passed through raw, against the previous parse-to-Map-then-serialize path.
+ */
+class UserDailyMealsResponseAllocationTest {
+
+    private static final int WARMUP = 2_000;
+    private static final int ITERATIONS = 5_000;
+    private static final String[] SLOTS = {"breakfast", "postBreakfast", "lunch", "postLunch", "preWorkout", "dinner"};
+    private static final TypeReference<Map<String, Object>> SLOT_TYPE = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    void rawSlotsAllocateFarLessThanParsedSlots() throws Exception {
+        Map<String, String> stored = storedSlots(8);
+
+        // both paths produce the same document
+        assertEquals(
+                objectMapper.readTree(objectMapper.writeValueAsBytes(parsed(stored))),
+                objectMapper.readTree(objectMapper.writeValueAsBytes(raw(stored))));
+
+        long parsedBytes = bytesPerResponse(() -> objectMapper.writeValue(OutputStream.nullOutputStream(), parsed(stored)));
+        long rawBytes = bytesPerResponse(() -> objectMapper.writeValue(OutputStream.nullOutputStream(), raw(stored)));
+
+        assertTrue(rawBytes * 3 < parsedBytes, String.format(
+                "6 slots x 8 items: raw passthrough should allocate at least 3x less, was raw %,d B/op vs parsed %,d B/op (%.1fx)",
+                rawBytes, parsedBytes, (double) parsedBytes / rawBytes));
+    }
+
+    private UserDailyMealsResponse raw(Map<String, String> stored) {
+        UserDailyMealsResponse res = skeleton();
+        res.setBreakfast(stored.get("breakfast"));
+        res.setPostBreakfast(stored.get("postBreakfast"));
+        res.setLunch(stored.get("lunch"));
+        res.setPostLunch(stored.get("postLunch"));
+        res.setPreWorkout(stored.get("preWorkout"));
+        res.setDinner(stored.get("dinner"));
+        return res;
+    }
+
+    // what toResponse used to do: every slot parsed into a Map field of the response, then serialized again
+    private ParsedSlotsResponse parsed(Map<String, String> stored) throws Exception {
+        ParsedSlotsResponse res = new ParsedSlotsResponse();
+        res.id = 1L;
+        res.userId = 42L;
+        res.mealDate = LocalDate.of(2024, 1, 1);
+        res.breakfast = objectMapper.readValue(stored.get("breakfast"), SLOT_TYPE);
+        res.postBreakfast = objectMapper.readValue(stored.get("postBreakfast"), SLOT_TYPE);
+        res.lunch = objectMapper.readValue(stored.get("lunch"), SLOT_TYPE);
+        res.postLunch = objectMapper.readValue(stored.get("postLunch"), SLOT_TYPE);
+        res.preWorkout = objectMapper.readValue(stored.get("preWorkout"), SLOT_TYPE);
+        res.dinner = objectMapper.readValue(stored.get("dinner"), SLOT_TYPE);
+        res.totalCalories = 2400d;
+        res.createdAt = LocalDateTime.of(2024, 1, 1, 8, 0);
+        res.updatedAt = LocalDateTime.of(2024, 1, 1, 20, 0);
+        return res;
+    }
+
+    /** The response as it was before the passthrough: same fields, slots held as parsed maps. */
+    @SuppressWarnings("unused")
+    private static class ParsedSlotsResponse {
+        public Long id;
+        public Long userId;
+        public LocalDate mealDate;
+
+        public Map<String, Object> breakfast;
+        public Map<String, Object> postBreakfast;
+        public Map<String, Object> lunch;
+        public Map<String, Object> postLunch;
+        public Map<String, Object> preWorkout;
+        public Map<String, Object> dinner;
+
+        public Double breakfastCalories;
+        public Double postBreakfastCalories;
+        public Double lunchCalories;
+        public Double postLunchCalories;
+        public Double preWorkoutCalories;
+        public Double dinnerCalories;
+        public Double totalCalories;
+
+        public MacroTotals breakfastMacros;
+        public MacroTotals postBreakfastMacros;
+        public MacroTotals lunchMacros;
+        public MacroTotals postLunchMacros;
+        public MacroTotals preWorkoutMacros;
+        public MacroTotals dinnerMacros;
+        public MacroTotals totalMacros;
+
+        public Long version;
+        public LocalDateTime createdAt;
+        public LocalDateTime updatedAt;
+    }
+
+    private static UserDailyMealsResponse skeleton() {
+        UserDailyMealsResponse res = new UserDailyMealsResponse();
+        res.setId(1L);
+        res.setUserId(42L);
+        res.setMealDate(LocalDate.of(2024, 1, 1));
+        res.setTotalCalories(2400d);
+        res.setCreatedAt(LocalDateTime.of(2024, 1, 1, 8, 0));
+        res.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 20, 0));
+        return res;
+    }
+
+    private Map<String, String> storedSlots(int itemsPerSlot) throws Exception {
+        Map<String, String> stored = new HashMap<>();
+        for (String slot : SLOTS) {
+            List<Map<String, Object>> items = new ArrayList<>();
+            for (int i = 0; i < itemsPerSlot; i++) {
+                Map<String, Object> macros = new LinkedHashMap<>();
+                macros.put("protein", 12.5 + i);
+                macros.put("carbs", 30.25 + i);
+                macros.put("fat", 8.0 + i);
+                macros.put("fiber", 3.5);
+                macros.put("calories", 240.0 + i);
+                Map<String, Object> item = new LinkedHashMap<>();
+                item.put("name", "Item " + i + " for " + slot);
+                item.put("quantity", (i + 1) * 50 + " g");
+                item.put("macros", macros);
+                items.add(item);
+            }
+            Map<String, Object> payload = new LinkedHashMap<>();
+            payload.put("mealType", slot);
+            payload.put("items", items);
+            payload.put("totalCalories", 400.0);
+            stored.put(slot, objectMapper.writeValueAsString(payload));
+        }
+        return stored;
+    }
+
+    private static long bytesPerResponse(Step step) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < WARMUP; i++) step.run();
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < ITERATIONS; i++) step.run();
+        return (threads.getCurrentThreadAllocatedBytes() - before) / ITERATIONS;
+    }
+
+    @FunctionalInterface
+    private interface Step {
+        void run() throws Exception;
+    }
+}
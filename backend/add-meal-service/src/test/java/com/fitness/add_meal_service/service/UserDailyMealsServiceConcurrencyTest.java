@@ -0,0 +1,203 @@
+package com.fitness.add_meal_service.service;
+
+import com.fitness.add_meal_service.dto.MealDayPushResult;
+import com.fitness.add_meal_service.dto.MealSlotDto;
+import com.fitness.add_meal_service.dto.UpdateMealsRequest;
+import com.fitness.add_meal_service.model.MealSlot;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class UserDailyMealsServiceConcurrencyTest {
+
+    private static final int WRITERS = 24;
+
+    @Autowired
+    private UserDailyMealsService userDailyMealsService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // far above real ids so the test never touches a real user's days
+    private final long userId = 9_000_000_000L + ThreadLocalRandom.current().nextInt(1_000_000);
+    private final LocalDate mealDate = LocalDate.of(2000, 1, 1);
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM user_daily_meals WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM user_weekly_nutrition WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM user_monthly_nutrition WHERE user_id = ?", userId);
+        jdbcTemplate.update("DELETE FROM user_meal_change_seq WHERE user_id = ?", userId);
+    }
+
+    @Test
+    void parallelFirstWritesForADayLeaveOneRowWithEverySlot() throws Exception {
+        MealSlot[] slots = MealSlot.values();
+        List<Callable<Double>> writers = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < WRITERS; i++) {
+            MealSlot slot = slots[i % slots.length];
+            double calories = 100d * (slot.ordinal() + 1);
+            writers.add(() -> {
+                start.await();
+                return userDailyMealsService.upsertSingle(userId, mealDate, slot.jsonKey(), List.of(), calories);
+            });
+        }
+        runTogether(writers, start);
+
+        assertEquals(1, rowCount());
+        // each slot was written with the same calories by every writer, so the total is exact
+        assertEquals(100d * (1 + 2 + 3 + 4 + 5 + 6), totalCalories());
+        assertRollupsMatchDay();
+        assertEveryWriteSequenced();
+    }
+
+    @Test
+    void parallelBulkAndSingleWritesLeaveOneRow() throws Exception {
+        List<Callable<Double>> writers = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < WRITERS; i++) {
+            if (i % 2 == 0) {
+                MealSlotDto lunch = new MealSlotDto();
+                lunch.setMealType("lunch");
+                lunch.setItems(List.of());
+                lunch.setTotalCalories(500d);
+                writers.add(() -> {
+                    start.await();
+                    return userDailyMealsService.upsertBulk(userId, mealDate, List.of(lunch));
+                });
+            } else {
+                writers.add(() -> {
+                    start.await();
+                    return userDailyMealsService.upsertSingle(userId, mealDate, "dinner", List.of(), 300d);
+                });
+            }
+        }
+        runTogether(writers, start);
+
+        assertEquals(1, rowCount());
+        assertRollupsMatchDay();
+        assertEveryWriteSequenced();
+    }
+
+    @Test
+    void parallelBatchAndSingleWritesApplyBatchEntriesInOrder() throws Exception {
+        MealSlotDto lunch = new MealSlotDto();
+        lunch.setMealType("lunch");
+        lunch.setItems(List.of());
+        lunch.setTotalCalories(500d);
+        UpdateMealsRequest bulk = new UpdateMealsRequest();
+        bulk.setMealDate(mealDate.toString());
+        bulk.setMeals(List.of(lunch));
+        UpdateMealsRequest dinner = new UpdateMealsRequest();
+        dinner.setMealDate(mealDate.toString());
+        dinner.setMealType("dinner");
+        dinner.setItems(List.of());
+        dinner.setTotalCalories(300d);
+
+        List<Callable<Double>> writers = new ArrayList<>();
+        CountDownLatch start = new CountDownLatch(1);
+        for (int i = 0; i < WRITERS; i++) {
+            if (i % 2 == 0) {
+                writers.add(() -> {
+                    start.await();
+                    return userDailyMealsService.upsertBatch(userId, List.of(bulk, dinner)).get(0).getTotalCalories();
+                });
+            } else {
+                writers.add(() -> {
+                    start.await();
+                    return userDailyMealsService.upsertSingle(userId, mealDate, "dinner", List.of(), 300d);
+                });
+            }
+        }
+        runTogether(writers, start);
+
+        assertEquals(1, rowCount());
+        // every batch leaves lunch and dinner, and single writes only ever rewrite dinner
+        assertEquals(800d, totalCalories());
+        assertRollupsMatchDay();
+        assertEveryWriteSequenced();
+    }
+
+    @Test
+    void pushMatchesBaseVersionsAboveTheBoxedLongCache() {
+        MealSlotDto lunch = new MealSlotDto();
+        lunch.setMealType("lunch");
+        lunch.setItems(List.of());
+        lunch.setTotalCalories(500d);
+        userDailyMealsService.upsertBulk(userId, mealDate, List.of(lunch));
+        // Long.valueOf only caches -128..127, so versions past that must still compare by value
+        jdbcTemplate.update("UPDATE user_daily_meals SET version = 1000 WHERE user_id = ? AND meal_date = ?", userId, mealDate);
+
+        MealDayPushResult stale = userDailyMealsService.pushDay(userId, mealDate, List.of(lunch), 999L);
+        assertTrue(stale.isConflict());
+        assertEquals(1000L, stale.getVersion());
+
+        MealDayPushResult current = userDailyMealsService.pushDay(userId, mealDate, List.of(lunch), Long.valueOf(1000L));
+        assertFalse(current.isConflict());
+        assertEquals(1001L, current.getVersion());
+    }
+
+    private void runTogether(List<Callable<Double>> writers, CountDownLatch start) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(writers.size());
+        try {
+            List<Future<Double>> results = new ArrayList<>();
+            for (Callable<Double> writer : writers) results.add(pool.submit(writer));
+            start.countDown();
+            for (Future<Double> result : results) result.get(30, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    // the only day of its week and month, so each rollup must equal the day whatever order the deltas ran in
+    private void assertRollupsMatchDay() {
+        double day = totalCalories();
+        assertEquals(day, jdbcTemplate.queryForObject(
+                "SELECT calories FROM user_weekly_nutrition WHERE user_id = ? AND week_start = ?",
+                Double.class, userId, mealDate.with(DayOfWeek.MONDAY)), 1e-9);
+        assertEquals(day, jdbcTemplate.queryForObject(
+                "SELECT calories FROM user_monthly_nutrition WHERE user_id = ? AND month_start = ?",
+                Double.class, userId, mealDate.withDayOfMonth(1)), 1e-9);
+    }
+
+    // each write took the next number and the day carries the last one, so no change can be skipped by GET /changes
+    private void assertEveryWriteSequenced() {
+        assertEquals(WRITERS, jdbcTemplate.queryForObject(
+                "SELECT last_seq FROM user_meal_change_seq WHERE user_id = ?", Long.class, userId));
+        assertEquals(WRITERS, jdbcTemplate.queryForObject(
+                "SELECT change_seq FROM user_daily_meals WHERE user_id = ? AND meal_date = ?",
+                Long.class, userId, mealDate));
+    }
+
+    private int rowCount() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM user_daily_meals WHERE user_id = ? AND meal_date = ?",
+                Integer.class, userId, mealDate);
+    }
+
+    private double totalCalories() {
+        return jdbcTemplate.queryForObject(
+                "SELECT total_calories FROM user_daily_meals WHERE user_id = ? AND meal_date = ?",
+                Double.class, userId, mealDate);
+    }
+}
@@ -1,8 +1,12 @@
 package com.fitness.auth_service.controller;
 
 import com.fitness.auth_service.dto.LoginRequest;
+import com.fitness.auth_service.dto.RefreshRequest;
 import com.fitness.auth_service.service.AuthService;
+import com.fitness.auth_service.service.PasswordVerifier;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -13,6 +17,8 @@ import org.springframework.web.bind.annotation.RestController;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -22,10 +28,19 @@ public class AuthController {
     private AuthService authService;
 
     @PostMapping("login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest request){
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest request){
         System.out.println("🔥 LOGIN API HIT: " + request.getEmail());
         try {
-            return authService.login(request);
+            return authService.login(request).exceptionally(this::loginFailed);
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(loginFailed(e));
+        }
+    }
+
+    @PostMapping("refresh")
+    public ResponseEntity<?> refresh(@RequestBody RefreshRequest request) {
+        try {
+            return authService.refresh(request);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage() != null ? e.getMessage() : "Unknown error");
@@ -33,4 +48,18 @@ public class AuthController {
         }
     }
 
+    // a full password verifier pool is answered 503 so clients back off instead of queueing
+    private ResponseEntity<?> loginFailed(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        Map<String, String> error = new HashMap<>();
+        if (cause instanceof PasswordVerifier.SaturatedException) {
+            error.put("error", cause.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(error);
+        }
+        error.put("error", cause.getMessage() != null ? cause.getMessage() : "Unknown error");
+        return ResponseEntity.badRequest().body(error);
+    }
+
 }
@@ -1,8 +1,10 @@
 package com.fitness.auth_service.controller;
 
+import com.fitness.auth_service.security.AuthenticatedUser;
 import com.fitness.auth_service.service.AuthService;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -16,10 +18,10 @@ public class UserProfileController {
     private AuthService authService;
 
     @GetMapping("/profile")
-    public ResponseEntity<?> getUserProfile(@RequestHeader("Authorization") String authorization) {
+    public ResponseEntity<?> getUserProfile(@AuthenticationPrincipal AuthenticatedUser user) {
         System.out.println("🔥 GET USER PROFILE API HIT");
         try {
-            return authService.getUserProfile(authorization);
+            return authService.getUserProfile(user.email());
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
             error.put("error", e.getMessage() != null ? e.getMessage() : "Failed to fetch user profile");
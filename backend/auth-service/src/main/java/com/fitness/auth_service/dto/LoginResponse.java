@@ -8,6 +8,8 @@ import java.time.LocalDate;
 public class LoginResponse {
     private Long id;
     private String token;
+    private String refreshToken;
+    private long expiresIn;
     private String email;
     private String mobile;
     private String firstName;
@@ -0,0 +1,8 @@
+package com.fitness.auth_service.dto;
+
+import lombok.Data;
+
+@Data
+public class RefreshRequest {
+    private String refreshToken;
+}
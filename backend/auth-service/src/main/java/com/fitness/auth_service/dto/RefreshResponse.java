@@ -0,0 +1,10 @@
+package com.fitness.auth_service.dto;
+
+import lombok.Data;
+
+@Data
+public class RefreshResponse {
+    private String token;
+    private String refreshToken;
+    private long expiresIn;
+}
@@ -2,14 +2,17 @@ package com.fitness.auth_service.service;
 
 import com.fitness.auth_service.dto.LoginRequest;
 import com.fitness.auth_service.dto.LoginResponse;
+import com.fitness.auth_service.dto.RefreshRequest;
+import com.fitness.auth_service.dto.RefreshResponse;
 import com.fitness.auth_service.dto.UserProfileResponse;
 import com.fitness.auth_service.model.User;
 import com.fitness.auth_service.repository.UserRepository;
 import com.fitness.auth_service.util.JwtUtil;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import org.springframework.stereotype.Service;
@@ -18,6 +21,8 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
 
 @Service
 public class AuthService {
@@ -25,7 +30,12 @@ public class AuthService {
     @Autowired
     private UserRepository userRepo;
     @Autowired
-    private PasswordEncoder encoder;
+    private PasswordVerifier passwordVerifier;
+    @Autowired
+    private RefreshTokenService refreshTokens;
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor taskExecutor;
 
     private final JwtUtil jwtUtil;
 
@@ -33,30 +43,41 @@ public class AuthService {
         this.jwtUtil = jwtUtil;
     }
 
-    public ResponseEntity<?> login(LoginRequest req) {
+    /**
+     * Checks the credentials and issues a token. The password is checked on the
+     * {@link PasswordVerifier} pool, and the tokens are signed and stored on the application task
+     * executor. The future fails with {@link PasswordVerifier.SaturatedException} when the verifier
+     * pool is full.
+     */
+    public CompletableFuture<ResponseEntity<?>> login(LoginRequest req) {
         // Validate input
         if (req.getEmail() == null || req.getEmail().trim().isEmpty()) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Email is required");
-            return ResponseEntity.badRequest().body(error);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(error));
         }
         if (req.getPassword() == null || req.getPassword().trim().isEmpty()) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Password is required");
-            return ResponseEntity.badRequest().body(error);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(error));
         }
 
         Optional<User> userOpt = userRepo.findByEmail(req.getEmail());
         if (userOpt.isEmpty()) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Invalid email or password");
-            return ResponseEntity.badRequest().body(error);
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(error));
         }
 
         // Verify password
         User user = userOpt.get();
-        System.out.println("password matches:: "+user +" "+(encoder.matches(req.getPassword(), user.getPasswordHash())));
-        if (!encoder.matches(req.getPassword(), user.getPasswordHash())) {
+        // the verifier pool is sized for hashing only; signing and storing the tokens run elsewhere
+        return passwordVerifier.matches(req.getPassword(), user.getPasswordHash())
+                .thenApplyAsync(matches -> loginResult(req, user, matches), taskExecutor);
+    }
+
+    private ResponseEntity<?> loginResult(LoginRequest req, User user, boolean passwordMatches) {
+        if (!passwordMatches) {
             Map<String, String> error = new HashMap<>();
             error.put("error", "Invalid email or password");
             return ResponseEntity.badRequest().body(error);
@@ -65,7 +86,9 @@ public class AuthService {
         // Create response
         LoginResponse response = new LoginResponse();
         response.setId(user.getId());
-        response.setToken(jwtUtil.generateToken(req.getEmail()));
+        response.setToken(jwtUtil.generateToken(req.getEmail(), user.getId()));
+        response.setRefreshToken(refreshTokens.issue(user.getId()));
+        response.setExpiresIn(jwtUtil.getAccessTokenTtl().toSeconds());
         response.setEmail(user.getEmail());
         response.setMobile(user.getMobile());
         response.setFirstName(user.getFirstName());
@@ -77,14 +100,31 @@ public class AuthService {
         response.setMessage("Login successful");
 
         return ResponseEntity.ok(response);
+    }
 
+    /**
+     * Exchanges a refresh token for a new access token and the next refresh token. Costs one
+     * indexed lookup instead of a BCrypt check, so expired access tokens need no password.
+     */
+    public ResponseEntity<?> refresh(RefreshRequest req) {
+        Optional<RefreshTokenService.Rotation> rotation = refreshTokens.rotate(req.getRefreshToken());
+        Optional<User> userOpt = rotation.flatMap(r -> userRepo.findById(r.userId()));
+        if (userOpt.isEmpty()) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "Invalid or expired refresh token");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+        }
+
+        User user = userOpt.get();
+        RefreshResponse response = new RefreshResponse();
+        response.setToken(jwtUtil.generateToken(user.getEmail(), user.getId()));
+        response.setRefreshToken(rotation.get().refreshToken());
+        response.setExpiresIn(jwtUtil.getAccessTokenTtl().toSeconds());
+        return ResponseEntity.ok(response);
     }
 
-    public ResponseEntity<?> getUserProfile(String token) {
+    public ResponseEntity<?> getUserProfile(String email) {
         try {
-            // Extract email from token
-            String email = jwtUtil.extractEmailFromToken(token);
-            
             // Find user by email
             Optional<User> userOpt = userRepo.findByEmail(email);
             if (userOpt.isEmpty()) {
@@ -0,0 +1,93 @@
+package com.fitness.auth_service.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs BCrypt password checks on a fixed pool of {@code auth.password-verify.threads} (one per core
+ * by default) behind a queue of {@code auth.password-verify.queue-capacity}. A check that finds the
+ * queue full fails at once with {@link SaturatedException}, so a login storm costs at most the
+ * pool's cores and never holds request threads that other endpoints need.
+ *
+ * Meters: {@code auth.password_verify} (time in BCrypt), {@code auth.password_verify.wait} (time
+ * queued), {@code auth.password_verify.queue} (checks waiting) and {@code auth.password_verify.rejected}.
+ */
+@Component
+public class PasswordVerifier {
+
+    /** The pool and its queue are full; the caller should answer 503. */
+    public static class SaturatedException extends RuntimeException {
+        public SaturatedException() {
+            super("Too many logins in progress, try again shortly");
+        }
+    }
+
+    private final PasswordEncoder encoder;
+    private final ThreadPoolExecutor pool;
+    private final Timer verifyTime;
+    private final Timer waitTime;
+    private final Counter rejected;
+
+    public PasswordVerifier(
+            PasswordEncoder encoder,
+            MeterRegistry meterRegistry,
+            @Value("${auth.password-verify.threads:0}") int threads,
+            @Value("${auth.password-verify.queue-capacity:64}") int queueCapacity
+    ) {
+        this.encoder = encoder;
+        int size = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.pool = new ThreadPoolExecutor(size, size, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-verify-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        pool.prestartAllCoreThreads();
+
+        this.verifyTime = Timer.builder("auth.password_verify")
+                .description("time spent checking one password against its hash")
+                .register(meterRegistry);
+        this.waitTime = Timer.builder("auth.password_verify.wait")
+                .description("time a password check waited for a verifier thread")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("auth.password_verify.rejected")
+                .description("password checks refused because the verifier queue was full")
+                .register(meterRegistry);
+        Gauge.builder("auth.password_verify.queue", pool, p -> p.getQueue().size())
+                .description("password checks waiting for a verifier thread")
+                .register(meterRegistry);
+    }
+
+    /** Whether the password matches the hash, checked on the verifier pool; fails with {@link SaturatedException} when it is full. */
+    public CompletableFuture<Boolean> matches(String rawPassword, String hash) {
+        long queuedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                long start = System.nanoTime();
+                waitTime.record(start - queuedAt, TimeUnit.NANOSECONDS);
+                boolean matches = encoder.matches(rawPassword, hash);
+                verifyTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                return matches;
+            }, pool);
+        } catch (RejectedExecutionException e) {
+            rejected.increment();
+            return CompletableFuture.failedFuture(new SaturatedException());
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.shutdown();
+    }
+}
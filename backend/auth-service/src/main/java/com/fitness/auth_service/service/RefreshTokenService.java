@@ -0,0 +1,105 @@
+package com.fitness.auth_service.service;
+
+import com.fitness.auth_service.model.RefreshToken;
+import com.fitness.auth_service.repository.RefreshTokenRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Rotating refresh tokens. A login starts a family with one token; each refresh uses up the
+ * presented token and issues the next one of the family, valid for {@code auth.refresh-token.ttl}.
+ * Tokens are 256 random bits and only their SHA-256 is stored, so a refresh is one indexed lookup
+ * and no BCrypt. Presenting a token that was already used means it was copied or replayed, and
+ * revokes every token of its family.
+ */
+@Service
+public class RefreshTokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(RefreshTokenService.class);
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    /** The user a token was rotated for and the refresh token to hand back. */
+    public record Rotation(Long userId, String refreshToken) {
+    }
+
+    private final RefreshTokenRepository tokens;
+    private final Duration ttl;
+
+    public RefreshTokenService(
+            RefreshTokenRepository tokens,
+            @Value("${auth.refresh-token.ttl:30d}") Duration ttl
+    ) {
+        this.tokens = tokens;
+        this.ttl = ttl;
+    }
+
+    /** Starts a new family for a login and returns its first token; the user's expired tokens are dropped. */
+    @Transactional
+    public String issue(Long userId) {
+        LocalDateTime now = LocalDateTime.now();
+        tokens.deleteExpired(userId, now);
+        return store(userId, UUID.randomUUID().toString(), now);
+    }
+
+    /**
+     * Uses up {@code rawToken} and returns the next token of its family. Empty if the token is
+     * unknown, expired or revoked, or was already used, in which case its family is revoked too.
+     */
+    @Transactional
+    public Optional<Rotation> rotate(String rawToken) {
+        if (rawToken == null || rawToken.isBlank()) return Optional.empty();
+
+        Optional<RefreshToken> found = tokens.findByTokenHash(hash(rawToken));
+        if (found.isEmpty()) return Optional.empty();
+
+        RefreshToken token = found.get();
+        LocalDateTime now = LocalDateTime.now();
+        if (token.getRevokedAt() != null || !token.getExpiresAt().isAfter(now)) return Optional.empty();
+        if (token.getUsedAt() != null) {
+            log.warn("Refresh token reused for user {}, revoking its family", token.getUserId());
+            tokens.revokeFamily(token.getFamilyId(), now);
+            return Optional.empty();
+        }
+
+        token.setUsedAt(now);
+        return Optional.of(new Rotation(token.getUserId(), store(token.getUserId(), token.getFamilyId(), now)));
+    }
+
+    private String store(Long userId, String familyId, LocalDateTime now) {
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        String raw = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+
+        RefreshToken token = new RefreshToken();
+        token.setUserId(userId);
+        token.setTokenHash(hash(raw));
+        token.setFamilyId(familyId);
+        token.setExpiresAt(now.plus(ttl));
+        tokens.save(token);
+        return raw;
+    }
+
+    // an unsalted digest is enough: the tokens are random, so there is no dictionary to try
+    private static String hash(String raw) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(raw.getBytes(StandardCharsets.US_ASCII));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -1,5 +1,10 @@
 package com.fitness.auth_service.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
 import jakarta.validation.Valid;
@@ -11,43 +16,108 @@ import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
+/**
+ * Issues and verifies login tokens. Verification uses one pre-built (immutable, thread-safe)
+ * parser, and verified claims are cached by the token's SHA-256 until the token's {@code exp},
+ * so a client repeating its token skips the signature check and JSON parsing.
+ */
 @Component
 public class JwtUtil {
 
     private final Key SECRET_KEY;
-    private static final long TOKEN_VALIDITY = 24 * 60 * 60 * 1000;
+    private final JwtParser parser;
+    private final Cache<String, Claims> verified;
+    private final Duration accessTokenTtl;
 
-    public JwtUtil(@Value("${spring.jwt.secret.string}") String secret) {
+    // numeric user id, so other services can identify the caller without looking up the email
+    public static final String USER_ID_CLAIM = "userId";
+
+    public JwtUtil(
+            @Value("${spring.jwt.secret.string}") String secret,
+            @Value("${auth.jwt.claims-cache.max-size:10000}") long maxCachedTokens,
+            @Value("${auth.jwt.access-token-ttl:24h}") Duration accessTokenTtl
+    ) {
+        this.accessTokenTtl = accessTokenTtl;
         this.SECRET_KEY = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(SECRET_KEY)
+                .build();
+        this.verified = Caffeine.newBuilder()
+                .maximumSize(maxCachedTokens)
+                .expireAfter(new UntilTokenExpiry())
+                .build();
+    }
+
+    /** How long an issued access token is valid; clients renew it through the refresh endpoint. */
+    public Duration getAccessTokenTtl() {
+        return accessTokenTtl;
     }
 
-    public String generateToken(String email) {
+    public String generateToken(String email, Long userId) {
         // Generate JWT token
-        System.out.println("Generating JWT token for user: " + email);
-        System.out.println("Using secret key: " + SECRET_KEY + "...");
         return Jwts.builder()
                 .setSubject(email)
+                .claim(USER_ID_CLAIM, userId)
                 .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + TOKEN_VALIDITY))
+                .setExpiration(new Date(System.currentTimeMillis() + accessTokenTtl.toMillis()))
                 .signWith(SECRET_KEY)
                 .compact();
     }
 
     public String extractEmailFromToken(String token) {
         try {
-            if (token != null && token.startsWith("Bearer ")) {
-                token = token.substring(7);
-            }
-            return Jwts.parserBuilder()
-                    .setSigningKey(SECRET_KEY)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody()
-                    .getSubject();
+            return parseClaims(token).getSubject();
         } catch (Exception e) {
             throw new RuntimeException("Invalid or expired token", e);
         }
     }
+
+    /** The verified claims of a (Bearer) token; throws if it is invalid or expired. Tokens without exp are verified on every call. */
+    public Claims parseClaims(String token) {
+        if (token != null && token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        String key = digest(token);
+        Claims claims = verified.getIfPresent(key);
+        if (claims != null) return claims;
+
+        claims = parser.parseClaimsJws(token).getBody();
+        if (claims.getExpiration() != null) verified.put(key, claims);
+        return claims;
+    }
+
+    private static String digest(String token) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // an entry lives until its token expires, and is never extended by reads
+    private static final class UntilTokenExpiry implements Expiry<String, Claims> {
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long millisLeft = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, millisLeft));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
 }
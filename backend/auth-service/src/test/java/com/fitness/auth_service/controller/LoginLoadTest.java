@@ -0,0 +1,162 @@
+package com.fitness.auth_service.controller;
+
+import com.fitness.auth_service.model.User;
+import com.fitness.auth_service.repository.UserRepository;
+import com.fitness.auth_service.util.JwtUtil;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Load test for the login path: while many clients hammer POST /api/auth/login, GET /api/user/profile
+ * must keep close to its idle latency, and logins beyond the verifier pool and its queue must be
+ * refused with 503 rather than pile up. The pool is shrunk so a modest storm saturates it.
+ * Latency on a shared machine is noisy, so it is tagged {@code load} and only runs with
+ * {@code mvn test -Pload-tests}.
+ */
+@Tag("load")
+@SpringBootTest(
+        webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"auth.password-verify.threads=2", "auth.password-verify.queue-capacity=4"}
+)
+class LoginLoadTest {
+
+    private static final int LOGIN_CLIENTS = 48;
+    private static final int PROFILE_SAMPLES = 200;
+    private static final String PASSWORD = "load-test-password";
+
+    @Value("${local.server.port}")
+    private int port;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final HttpClient http = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    private User user;
+    private String token;
+
+    @BeforeEach
+    void createUser() {
+        // unique per run so the test never touches a real account
+        long suffix = ThreadLocalRandom.current().nextLong(1_000_000_000L);
+        user = new User();
+        user.setEmail("login-load-" + suffix + "@example.com");
+        user.setMobile("load" + suffix);
+        user.setPasswordHash(passwordEncoder.encode(PASSWORD));
+        user = userRepository.save(user);
+        token = jwtUtil.generateToken(user.getEmail(), user.getId());
+    }
+
+    @AfterEach
+    void deleteUser() {
+        jdbcTemplate.update("DELETE FROM refresh_tokens WHERE user_id = ?", user.getId());
+        userRepository.deleteById(user.getId());
+    }
+
+    @Test
+    void profileKeepsItsLatencyDuringALoginStorm() throws Exception {
+        for (int i = 0; i < 20; i++) profile(); // warm up
+        long idleP95 = p95(sampleProfile());
+
+        AtomicBoolean storming = new AtomicBoolean(true);
+        AtomicInteger ok = new AtomicInteger();
+        AtomicInteger unavailable = new AtomicInteger();
+        AtomicInteger other = new AtomicInteger();
+        ExecutorService clients = Executors.newFixedThreadPool(LOGIN_CLIENTS);
+        for (int i = 0; i < LOGIN_CLIENTS; i++) {
+            clients.submit(() -> {
+                while (storming.get()) {
+                    int status = login();
+                    (status == 200 ? ok : status == 503 ? unavailable : other).incrementAndGet();
+                }
+                return null;
+            });
+        }
+        List<Long> stormLatencies;
+        try {
+            Thread.sleep(500); // let the verifier pool and its queue fill up
+            stormLatencies = sampleProfile();
+        } finally {
+            storming.set(false);
+            clients.shutdown();
+            assertTrue(clients.awaitTermination(30, TimeUnit.SECONDS));
+        }
+        long stormP95 = p95(stormLatencies);
+
+        assertEquals(0, other.get(), "logins answered with something other than 200 or 503");
+        assertTrue(ok.get() > 0, "no login succeeded during the storm");
+        assertTrue(unavailable.get() > 0, "the storm never saturated the verifier pool");
+        assertTrue(stormP95 <= Math.max(3 * idleP95, idleP95 + TimeUnit.MILLISECONDS.toNanos(50)),
+                "profile p95 went from " + idleP95 / 1_000 + " us idle to " + stormP95 / 1_000 + " us during logins");
+    }
+
+    private List<Long> sampleProfile() throws Exception {
+        List<Long> latencies = new ArrayList<>();
+        for (int i = 0; i < PROFILE_SAMPLES; i++) {
+            long start = System.nanoTime();
+            assertEquals(200, profile());
+            latencies.add(System.nanoTime() - start);
+        }
+        return latencies;
+    }
+
+    private int profile() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/user/profile"))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private int login() throws Exception {
+        String body = "{\"email\":\"" + user.getEmail() + "\",\"password\":\"" + PASSWORD + "\"}";
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/auth/login"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return http.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private static long p95(List<Long> latencies) {
+        List<Long> sorted = new ArrayList<>(latencies);
+        Collections.sort(sorted);
+        return sorted.get((int) Math.ceil(sorted.size() * 0.95) - 1);
+    }
+}
@@ -0,0 +1,102 @@
+package com.fitness.auth_service.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+class RefreshTokenServiceTest {
+
+    @Autowired
+    private RefreshTokenService refreshTokens;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // far above real ids so the test never touches a real user's tokens
+    private final long userId = 9_000_000_000L + ThreadLocalRandom.current().nextInt(1_000_000);
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM refresh_tokens WHERE user_id = ?", userId);
+    }
+
+    @Test
+    void rotationHandsOutTheNextTokenOfTheFamily() {
+        String first = refreshTokens.issue(userId);
+
+        Optional<RefreshTokenService.Rotation> rotated = refreshTokens.rotate(first);
+        assertTrue(rotated.isPresent());
+        assertEquals(userId, rotated.get().userId());
+        assertNotEquals(first, rotated.get().refreshToken());
+
+        // the new token rotates in turn
+        assertTrue(refreshTokens.rotate(rotated.get().refreshToken()).isPresent());
+        assertEquals(1, familyCount());
+        // only hashes are stored
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM refresh_tokens WHERE user_id = ? AND token_hash = ?", Integer.class, userId, first));
+    }
+
+    @Test
+    void reusingAUsedTokenRevokesItsFamily() {
+        String first = refreshTokens.issue(userId);
+        String second = refreshTokens.rotate(first).orElseThrow().refreshToken();
+
+        assertTrue(refreshTokens.rotate(first).isEmpty());
+        // the legitimate holder of the newer token is logged out too
+        assertTrue(refreshTokens.rotate(second).isEmpty());
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM refresh_tokens WHERE user_id = ? AND revoked_at IS NULL", Integer.class, userId));
+    }
+
+    @Test
+    void reuseLeavesOtherLoginsAlone() {
+        String stolen = refreshTokens.issue(userId);
+        String otherDevice = refreshTokens.issue(userId);
+        refreshTokens.rotate(stolen);
+        refreshTokens.rotate(stolen);
+
+        assertTrue(refreshTokens.rotate(otherDevice).isPresent());
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        String token = refreshTokens.issue(userId);
+        jdbcTemplate.update("UPDATE refresh_tokens SET expires_at = ? WHERE user_id = ?", LocalDateTime.now().minusMinutes(1), userId);
+
+        assertTrue(refreshTokens.rotate(token).isEmpty());
+    }
+
+    @Test
+    void revokedTokenIsRejected() {
+        String token = refreshTokens.issue(userId);
+        jdbcTemplate.update("UPDATE refresh_tokens SET revoked_at = NOW() WHERE user_id = ?", userId);
+
+        assertTrue(refreshTokens.rotate(token).isEmpty());
+    }
+
+    @Test
+    void unknownOrBlankTokenIsRejected() {
+        refreshTokens.issue(userId);
+
+        assertTrue(refreshTokens.rotate("not-a-token").isEmpty());
+        assertTrue(refreshTokens.rotate(" ").isEmpty());
+        assertTrue(refreshTokens.rotate(null).isEmpty());
+    }
+
+    private int familyCount() {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT family_id) FROM refresh_tokens WHERE user_id = ?", Integer.class, userId);
+    }
+}
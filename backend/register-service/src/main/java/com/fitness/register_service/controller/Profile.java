@@ -3,10 +3,13 @@ package com.fitness.register_service.controller;
 import com.fitness.register_service.dto.CreateProfileRequest;
 import com.fitness.register_service.dto.RegisterRequest;
 import com.fitness.register_service.dto.UpdateProfileRequest;
+import com.fitness.register_service.security.AuthenticatedUser;
 import com.fitness.register_service.service.CreateProfile;
 import com.fitness.register_service.service.UpdateService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.HashMap;
@@ -34,8 +37,16 @@ public class Profile {
     }
 
     @PutMapping("/update-profile")
-    public ResponseEntity<?> updateUserProfile(@RequestBody UpdateProfileRequest request) {
+    public ResponseEntity<?> updateUserProfile(@RequestBody UpdateProfileRequest request,
+                                               @AuthenticationPrincipal AuthenticatedUser user) {
         System.out.println("🔥 UPDATE USER PROFILE API HIT: " + request.getEmail() + " - " + request.getField());
+        // the token decides whose profile is changed; an email sent alongside it must be the same user
+        if (request.getEmail() != null && !request.getEmail().equalsIgnoreCase(user.email())) {
+            Map<String, String> error = new HashMap<>();
+            error.put("error", "email does not match the authenticated user");
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+        }
+        request.setEmail(user.email());
         try {
             return updateService.updateUserProfile(request);
         } catch (Exception e) {
@@ -0,0 +1,5 @@
+package com.fitness.register_service.security;
+
+/** The caller of an authenticated request, as established from their token by {@link JwtAuthenticationFilter}. */
+public record AuthenticatedUser(Long userId, String email) {
+}
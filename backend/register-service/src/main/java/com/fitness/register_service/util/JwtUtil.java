@@ -0,0 +1,34 @@
+package com.fitness.register_service.util;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/** Verifies the tokens auth-service issues, with one pre-built (immutable, thread-safe) parser. */
+@Component
+public class JwtUtil {
+
+    // numeric user id claim set by auth-service; tokens issued before it only carry the email
+    public static final String USER_ID_CLAIM = "userId";
+
+    private final JwtParser parser;
+
+    public JwtUtil(@Value("${spring.jwt.secret.string}") String secret) {
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .build();
+    }
+
+    /** The verified claims of a (Bearer) token; throws if it is invalid or expired. */
+    public Claims parseClaims(String token) {
+        if (token != null && token.startsWith("Bearer ")) {
+            token = token.substring(7);
+        }
+        return parser.parseClaimsJws(token).getBody();
+    }
+}